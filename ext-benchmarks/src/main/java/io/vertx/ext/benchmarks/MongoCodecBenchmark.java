@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.benchmarks;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.impl.codec.json.JsonObjectCodec;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding cost of the {@link JsonObjectCodec} used to exchange {@link JsonObject} documents with
+ * MongoDB, for flat documents and for documents with nested objects and arrays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MongoCodecBenchmark {
+
+  @Param({"flat", "nested"})
+  public String shape;
+
+  private final JsonObjectCodec codec = new JsonObjectCodec();
+  private JsonObject document;
+  private byte[] bson;
+
+  @Setup
+  public void setup() {
+    document = new JsonObject().put("_id", "5489d8e4e4b0d3ab0b6e8b5a").put("name", "Vert.x").put("stars", 1234)
+      .put("score", 98.5d).put("active", true).put("description", "A tool-kit for building reactive applications");
+    if (shape.equals("nested")) {
+      JsonArray contributors = new JsonArray();
+      for (int i = 0; i < 20; i++) {
+        contributors.add(new JsonObject().put("login", "user" + i).put("commits", i * 10)
+          .put("address", new JsonObject().put("city", "City " + i).put("zip", "0000" + i)));
+      }
+      JsonArray tags = new JsonArray();
+      for (int i = 0; i < 10; i++) {
+        tags.add("tag" + i);
+      }
+      document.put("contributors", contributors).put("tags", tags)
+        .put("owner", new JsonObject().put("login", "eclipse").put("type", "Organization")
+          .put("links", new JsonObject().put("self", "http://example.com/eclipse").put("repos", 42)));
+    }
+    bson = encode();
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    BasicOutputBuffer buffer = new BasicOutputBuffer();
+    codec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+    return buffer.toByteArray();
+  }
+
+  @Benchmark
+  public JsonObject decode() {
+    return codec.decode(new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.benchmarks;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.CaseInsensitiveHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.routematcher.RouteMatcher;
+import io.vertx.ext.routematcher.RouteMatcherOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch cost of {@link RouteMatcher#accept(HttpServerRequest)} on a REST like routing table mixing static
+ * patterns, simple patterns with params and regular expressions, for each way the route matcher can be configured.<p>
+ * The requests are dynamic proxies, their cost is the same for all the configurations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteMatcherBenchmark {
+
+  @Param({"default", "radixTree", "combinedRegEx", "all"})
+  public String mode;
+
+  @Param({"20", "200"})
+  public int resources;
+
+  private RouteMatcher matcher;
+  private MultiMap params;
+  private HttpServerRequest first;
+  private HttpServerRequest last;
+  private HttpServerRequest regex;
+  private HttpServerRequest staticPath;
+  private HttpServerRequest notFound;
+  private int hits;
+
+  @Setup
+  public void setup() {
+    RouteMatcherOptions options = new RouteMatcherOptions();
+    if (mode.equals("radixTree") || mode.equals("all")) {
+      options.setRadixTree(true);
+    }
+    if (mode.equals("combinedRegEx") || mode.equals("all")) {
+      options.setCombinedRegEx(true);
+    }
+    matcher = RouteMatcher.routeMatcher(options);
+    for (int i = 0; i < resources; i++) {
+      String resource = "/api/v1/resource" + i;
+      matcher.matchMethod(HttpMethod.GET, resource, req -> hits++);
+      matcher.matchMethod(HttpMethod.GET, resource + "/:id", req -> hits++);
+      matcher.matchMethod(HttpMethod.GET, resource + "/:id/items/:item", req -> hits++);
+      matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/api\\/v2\\/resource" + i + "\\/([0-9]+)", req -> hits++);
+    }
+    params = new CaseInsensitiveHeaders();
+    int lastResource = resources - 1;
+    first = request("/api/v1/resource0/123");
+    last = request("/api/v1/resource" + lastResource + "/123/items/456");
+    regex = request("/api/v2/resource" + lastResource + "/789");
+    staticPath = request("/api/v1/resource" + lastResource);
+    notFound = request("/api/v3/missing");
+  }
+
+  @Benchmark
+  public int firstRoute() {
+    return accept(first);
+  }
+
+  @Benchmark
+  public int lastRoute() {
+    return accept(last);
+  }
+
+  @Benchmark
+  public int lastRegEx() {
+    return accept(regex);
+  }
+
+  @Benchmark
+  public int staticRoute() {
+    return accept(staticPath);
+  }
+
+  @Benchmark
+  public int noMatch() {
+    return accept(notFound);
+  }
+
+  private int accept(HttpServerRequest request) {
+    matcher.accept(request);
+    params.clear();
+    return hits;
+  }
+
+  private HttpServerRequest request(String path) {
+    HttpServerResponse response = (HttpServerResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class[]{HttpServerResponse.class}, (proxy, method, args) ->
+        method.getReturnType() == HttpServerResponse.class ? proxy : null);
+    return (HttpServerRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class[]{HttpServerRequest.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "method":
+            return HttpMethod.GET;
+          case "path":
+          case "uri":
+            return path;
+          case "params":
+            return params;
+          case "response":
+            return response;
+          default:
+            return method.getReturnType() == HttpServerRequest.class ? proxy : null;
+        }
+      });
+  }
+}
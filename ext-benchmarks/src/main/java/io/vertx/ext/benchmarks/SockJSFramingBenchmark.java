@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.benchmarks;
+
+import io.vertx.ext.sockjs.impl.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the SockJS array frame of the pending messages of a session, as done by
+ * {@code Session.writePendingMessages()}: the messages are encoded with the escaping {@link JsonCodec} and
+ * prefixed with the frame type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SockJSFramingBenchmark {
+
+  @Param({"1", "10", "100"})
+  public int messages;
+
+  @Param({"ascii", "unicode"})
+  public String content;
+
+  private List<String> pendingWrites;
+
+  @Setup
+  public void setup() {
+    // Event bus bridge messages are JSON envelopes sent as strings
+    String body = content.equals("ascii") ?
+      "{\"address\":\"news.feed\",\"body\":{\"title\":\"Hello world\",\"text\":\"Lorem ipsum dolor sit amet\"}}" :
+      "{\"address\":\"news.feed\",\"body\":{\"title\":\"Héllo wörld\",\"text\":\"こんにちは\t世界\"}}";
+    pendingWrites = new ArrayList<>();
+    for (int i = 0; i < messages; i++) {
+      pendingWrites.add(body);
+    }
+  }
+
+  @Benchmark
+  public String writePendingMessages() {
+    String json = JsonCodec.encode(pendingWrites.toArray());
+    return "a" + json;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.sockjs.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.sockjs.BridgeOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking a message against the permitted rules of an {@link EventBusBridge}, with address rules,
+ * regular expression rules and rules matching the structure of the body. This benchmark lives in the package of the
+ * bridge to call {@link EventBusBridge#checkMatches(boolean, String, Object)} directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBridgeBenchmark {
+
+  @Param({"10", "100"})
+  public int rules;
+
+  private Vertx vertx;
+  private EventBusBridge bridge;
+  private JsonObject body;
+  private String lastAddress;
+  private String regexAddress;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    BridgeOptions options = new BridgeOptions();
+    for (int i = 0; i < rules; i++) {
+      options.addInboundPermitted(new JsonObject().put("address", "service.address" + i));
+      options.addInboundPermitted(new JsonObject().put("address_re", "service\\.regex" + i + "\\..+"));
+      options.addInboundPermitted(new JsonObject().put("address", "service.structure" + i)
+        .put("match", new JsonObject().put("action", "find").put("collection", new JsonObject().put("name", "items"))));
+    }
+    bridge = new EventBusBridge(vertx, options);
+    body = new JsonObject().put("action", "find").put("collection", new JsonObject().put("name", "items"))
+      .put("matcher", new JsonObject().put("price", 10));
+    lastAddress = "service.structure" + (rules - 1);
+    regexAddress = "service.regex" + (rules - 1) + ".foo";
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public boolean lastAddressRule() {
+    return bridge.checkMatches(true, lastAddress, body).doesMatch;
+  }
+
+  @Benchmark
+  public boolean lastRegExRule() {
+    return bridge.checkMatches(true, regexAddress, body).doesMatch;
+  }
+
+  @Benchmark
+  public boolean noRule() {
+    return bridge.checkMatches(true, "unknown.address", body).doesMatch;
+  }
+}
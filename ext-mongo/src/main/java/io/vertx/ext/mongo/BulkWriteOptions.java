@@ -0,0 +1,50 @@
+package io.vertx.ext.mongo;
+
+import io.vertx.codegen.annotations.Options;
+import io.vertx.core.json.JsonObject;
+
+@Options
+public class BulkWriteOptions extends WriteOptions {
+  private Boolean ordered;
+
+  public BulkWriteOptions() {
+  }
+
+  public BulkWriteOptions(JsonObject json) {
+    super(json);
+    this.ordered = json.getBoolean("ordered");
+  }
+
+  public BulkWriteOptions(BulkWriteOptions other) {
+    super(other);
+    this.ordered = other.ordered;
+  }
+
+  public Boolean isOrdered() {
+    return ordered;
+  }
+
+  /**
+   * When ordered, which is the default, the operations are applied in order and stop at the first failed operation.
+   * Otherwise the operations may be applied in any order and a failed operation does not stop the others.
+   */
+  public BulkWriteOptions setOrdered(boolean ordered) {
+    this.ordered = ordered;
+    return this;
+  }
+
+  @Override
+  public BulkWriteOptions setWriteConcern(String writeConcern) {
+    super.setWriteConcern(writeConcern);
+    return this;
+  }
+
+  public JsonObject toJson() {
+    JsonObject json = super.toJson();
+    if (ordered != null) {
+      json.put("ordered", ordered);
+    }
+
+    return json;
+  }
+}
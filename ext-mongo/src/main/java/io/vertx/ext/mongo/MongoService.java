@@ -7,7 +7,9 @@ import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.ext.mongo.impl.MongoServiceImpl;
 import io.vertx.proxygen.ProxyHelper;
 
@@ -34,6 +36,24 @@ public interface MongoService {
 
   void insert(String collection, JsonObject document, InsertOptions options, Handler<AsyncResult<String>> resultHandler);
 
+  // With write_behind configured for the collection, inserts without a write concern are queued and sent in batches,
+  // the queue is full once it holds max_queue_size documents
+  @ProxyIgnore
+  boolean writeQueueFull(String collection);
+
+  // Called once the insert queue of the collection is back to half of max_queue_size
+  @ProxyIgnore
+  void drainHandler(String collection, Handler<Void> handler);
+
+  // Inserts the documents with as few round trips as possible, the result is the same as bulkWrite
+  void insertMany(String collection, List<JsonObject> documents, InsertOptions options, Handler<AsyncResult<JsonObject>> resultHandler);
+
+  // Each operation is an object with a single insertOne, updateOne, updateMany, replaceOne, deleteOne or deleteMany
+  // field whose value holds the document, filter, update, replacement and upsert of the operation. Operations are
+  // sent in batches, the result gives the nInserted, nMatched, nModified, nUpserted and nRemoved counts, the
+  // insertedIds and upserted ids and the writeErrors, each with the index of its operation
+  void bulkWrite(String collection, List<JsonObject> operations, BulkWriteOptions options, Handler<AsyncResult<JsonObject>> resultHandler);
+
   void update(String collection, JsonObject query, JsonObject update, UpdateOptions options, Handler<AsyncResult<Void>> resultHandler);
 
   void replace(String collection, JsonObject query, JsonObject replace, UpdateOptions options, Handler<AsyncResult<Void>> resultHandler);
@@ -41,6 +61,26 @@ public interface MongoService {
   // Currently firehose of data as Mongo client doesn't support flow control
   void find(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, Handler<AsyncResult<List<JsonObject>>> resultHandler);
 
+  // Returns each document as a buffer holding its BSON encoding, the documents are never decoded
+  @ProxyIgnore
+  void findRaw(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, Handler<AsyncResult<List<Buffer>>> resultHandler);
+
+  // Returns the documents as a JSON array, transcoded from BSON as they are read rather than decoded into JSON objects
+  @ProxyIgnore
+  void findJson(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, Handler<AsyncResult<Buffer>> resultHandler);
+
+  // Documents are fetched batchSize at a time, the next batch is not fetched while the stream is paused
+  @ProxyIgnore
+  ReadStream<JsonObject> findStream(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, int batchSize);
+
+  // Returns the first batchSize documents in a "results" array, along with a "cursor" id to get the next batch with
+  // findNextBatch unless there are no more documents. A cursor not used for cursor_timeout ms is closed
+  void findBatch(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, int batchSize, Handler<AsyncResult<JsonObject>> resultHandler);
+
+  void findNextBatch(String cursor, Handler<AsyncResult<JsonObject>> resultHandler);
+
+  void closeCursor(String cursor, Handler<AsyncResult<Void>> resultHandler);
+
   void findOne(String collection, JsonObject query, JsonObject fields, Handler<AsyncResult<JsonObject>> resultHandler);
 
   void count(String collection, JsonObject query, Handler<AsyncResult<Long>> resultHandler);
@@ -55,6 +95,10 @@ public interface MongoService {
 
   void dropCollection(String collection, Handler<AsyncResult<Void>> resultHandler);
 
+  // Returns the hits, misses, evictions and size of the document cache of each collection configured in
+  // document_cache, whose findOne and find by _id are answered from the cache
+  void getCacheMetrics(Handler<AsyncResult<JsonObject>> resultHandler);
+
   void runCommand(String collection, JsonObject command, Handler<AsyncResult<JsonObject>> resultHandler);
 
   @ProxyIgnore
@@ -0,0 +1,197 @@
+package io.vertx.ext.mongo.impl;
+
+import com.mongodb.async.MongoFuture;
+import com.mongodb.async.client.MongoCollection;
+import com.mongodb.async.client.MongoView;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.impl.codec.json.JsonObjectCodec;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static io.vertx.ext.mongo.impl.Utils.*;
+
+/**
+ * The results of a query, fetched one batch at a time.<p>
+ * The async driver only lets the caller consume a query cursor as a whole, so each batch is fetched with its own
+ * query and nothing is held on the server between two batches.<p>
+ * When no sort is given, the results are sorted by {@code _id} and each batch only queries the documents whose
+ * {@code _id} is greater than the last one fetched, so the server does not scan the documents already fetched again
+ * and documents inserted or removed meanwhile do not shift the next batches. The last {@code _id} is kept as read
+ * from the server rather than from the decoded JSON, where object ids and dates lose their type, since the server
+ * only compares values of the same type. When a sort is given, {@code _id} is added to it to break ties, so that the
+ * order is the same for every batch, and each batch skips the documents already fetched.<p>
+ * A batch must not be fetched before the previous one is done.<p>
+ */
+class BatchCursor {
+
+  private static final String ID_FIELD = "_id";
+  private static final Document ID_SORT = new Document(ID_FIELD, 1);
+
+  private final IdCodec codec = new IdCodec();
+  private final MongoCollection<JsonObject> coll;
+  private final Document query;
+  private final Document fields;
+  // Null when the batches are paged by _id
+  private final Document sort;
+  // Whether the _id is only fetched to page the batches
+  private final boolean hideId;
+  private final int batchSize;
+  private int skip;
+  private Object lastId;
+  // The number of documents left to fetch, or -1 when the query has no limit
+  private int remaining;
+  private boolean exhausted;
+  // The timer closing the cursor when it is not used
+  long timerID = -1;
+
+  /**
+   * @param collection the collection decoding its documents with the given codec
+   */
+  BatchCursor(Function<JsonObjectCodec, MongoCollection<JsonObject>> collection, JsonObject query, JsonObject fields,
+              JsonObject sort, int limit, int skip, int batchSize) {
+    this.coll = collection.apply(codec);
+    this.query = toDocument(query);
+    this.sort = sort != null ? tieBreak(sort) : null;
+    this.hideId = sort == null && fields != null && isExcluded(fields.getValue(ID_FIELD));
+    this.fields = hideId ? toDocument(without(fields, ID_FIELD)) : toDocument(fields);
+    this.batchSize = batchSize;
+    this.skip = Math.max(skip, 0);
+    this.remaining = limit > 0 ? limit : -1;
+  }
+
+  private static Document tieBreak(JsonObject sort) {
+    Document document = new Document();
+    for (String name: sort.fieldNames()) {
+      document.append(name, sort.getValue(name));
+    }
+    if (!document.containsKey(ID_FIELD)) {
+      document.append(ID_FIELD, 1);
+    }
+    return document;
+  }
+
+  private static boolean isExcluded(Object value) {
+    return Boolean.FALSE.equals(value) || (value instanceof Number && ((Number) value).intValue() == 0);
+  }
+
+  private static JsonObject without(JsonObject json, String field) {
+    JsonObject copy = json.copy();
+    copy.remove(field);
+    return copy;
+  }
+
+  /**
+   * @return whether all the results have been fetched
+   */
+  boolean isExhausted() {
+    return exhausted;
+  }
+
+  /**
+   * Fetch the next batch, the handler is called on the context.
+   */
+  void next(Context context, Handler<AsyncResult<List<JsonObject>>> resultHandler) {
+    if (exhausted) {
+      context.runOnContext(v -> resultHandler.handle(Future.completedFuture(new ArrayList<>())));
+      return;
+    }
+    int size = remaining == -1 ? batchSize : Math.min(batchSize, remaining);
+    MongoView<JsonObject> view;
+    if (sort != null) {
+      view = coll.find(query).sort(sort);
+    } else if (lastId != null) {
+      Document after = new Document(ID_FIELD, new Document("$gt", lastId));
+      view = coll.find(query.isEmpty() ? after : new Document("$and", Arrays.asList(query, after))).sort(ID_SORT);
+    } else {
+      view = coll.find(query).sort(ID_SORT);
+    }
+    view = view.skip(skip).limit(size);
+    if (fields != null) {
+      view.fields(fields);
+    }
+    MongoFuture<List<JsonObject>> future = view.into(new ArrayList<>(size));
+    future.register((batch, e) -> {
+      context.runOnContext(v -> {
+        if (e != null) {
+          resultHandler.handle(Future.completedFuture(e));
+        } else {
+          if (sort != null) {
+            skip += batch.size();
+          } else if (!batch.isEmpty()) {
+            lastId = codec.lastId;
+            skip = 0;
+            if (hideId) {
+              batch.forEach(doc -> doc.remove(ID_FIELD));
+            }
+          }
+          if (remaining != -1) {
+            remaining -= batch.size();
+          }
+          exhausted = batch.size() < size || remaining == 0;
+          resultHandler.handle(Future.completedFuture(batch));
+        }
+      });
+    });
+  }
+
+  /**
+   * Decodes the documents as the service does, and also keeps the {@code _id} of the last document decoded with its
+   * BSON type. The documents of a batch are decoded one after the other, before the batch is handed to the cursor.
+   */
+  private static class IdCodec extends JsonObjectCodec {
+
+    private static final BsonValueCodec VALUE_CODEC = new BsonValueCodec();
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+
+    private volatile Object lastId;
+    private boolean nested;
+
+    @Override
+    protected JsonObject readDocument(BsonReader reader, DecoderContext ctx) {
+      if (nested) {
+        return super.readDocument(reader, ctx);
+      }
+      nested = true;
+      try {
+        JsonObject object = newObject();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          String name = reader.readName();
+          if (name.equals(ID_FIELD)) {
+            BsonDocument id = new BsonDocument(ID_FIELD, VALUE_CODEC.decode(reader, ctx));
+            lastId = DOCUMENT_CODEC.decode(new BsonDocumentReader(id), ctx).get(ID_FIELD);
+            add(object, name, readId(new BsonDocumentReader(id), ctx));
+          } else {
+            add(object, name, readValue(reader, ctx));
+          }
+        }
+        reader.readEndDocument();
+        return object;
+      } finally {
+        nested = false;
+      }
+    }
+
+    private Object readId(BsonReader reader, DecoderContext ctx) {
+      reader.readStartDocument();
+      reader.readBsonType();
+      reader.readName();
+      return readValue(reader, ctx);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package io.vertx.ext.mongo.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Streams the results of a {@link BatchCursor}, the next batch is only fetched once the documents of the previous
+ * one have been handled, so a paused stream does not fetch anything. Setting a {@code null} handler closes the
+ * stream, the documents not handled yet are dropped.<p>
+ */
+class BatchReadStream implements ReadStream<JsonObject> {
+
+  private final BatchCursor cursor;
+  private final Context context;
+  private final Queue<JsonObject> pending = new ArrayDeque<>();
+  private Handler<JsonObject> dataHandler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+  private boolean paused;
+  private boolean fetching;
+  private boolean closed;
+
+  BatchReadStream(BatchCursor cursor, Context context) {
+    this.cursor = cursor;
+    this.context = context;
+  }
+
+  @Override
+  public ReadStream<JsonObject> handler(Handler<JsonObject> handler) {
+    this.dataHandler = handler;
+    if (handler == null) {
+      closed = true;
+      pending.clear();
+    } else {
+      drain();
+    }
+    return this;
+  }
+
+  @Override
+  public ReadStream<JsonObject> pause() {
+    paused = true;
+    return this;
+  }
+
+  @Override
+  public ReadStream<JsonObject> resume() {
+    paused = false;
+    drain();
+    return this;
+  }
+
+  @Override
+  public ReadStream<JsonObject> endHandler(Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    return this;
+  }
+
+  @Override
+  public ReadStream<JsonObject> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  private void drain() {
+    if (dataHandler == null) {
+      return;
+    }
+    JsonObject doc;
+    while (!closed && !paused && (doc = pending.poll()) != null) {
+      dataHandler.handle(doc);
+    }
+    if (closed || paused || fetching) {
+      return;
+    }
+    if (cursor.isExhausted()) {
+      closed = true;
+      if (endHandler != null) {
+        endHandler.handle(null);
+      }
+      return;
+    }
+    fetching = true;
+    cursor.next(context, ar -> {
+      fetching = false;
+      if (closed) {
+        return;
+      }
+      if (ar.failed()) {
+        closed = true;
+        if (exceptionHandler != null) {
+          exceptionHandler.handle(ar.cause());
+        }
+      } else {
+        pending.addAll(ar.result());
+        drain();
+      }
+    });
+  }
+}
@@ -0,0 +1,382 @@
+package io.vertx.ext.mongo.impl;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.async.MongoFuture;
+import com.mongodb.async.client.MongoDatabase;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.impl.codec.json.JsonObjectCodec;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.vertx.ext.mongo.impl.Utils.*;
+
+/**
+ * A list of write operations sent with the batch write commands.<p>
+ * Consecutive operations of the same kind, or all the operations of a kind when the write is unordered, are grouped
+ * in a single {@code insert}, {@code update} or {@code delete} command of at most {@link #MAX_BATCH_SIZE} operations
+ * and {@link #MAX_BSON_OBJECT_SIZE} bytes of encoded entries, so that a whole batch costs a single round trip. The
+ * size of an entry is computed from its values rather than by encoding it. An entry larger than the limit on its own
+ * is not sent, it fails with the error the server would reply.<p>
+ * Each command is sent from the driver callback of the previous one and the result is handed to the caller context
+ * once, when the last command is done.<p>
+ * The errors of single operations do not fail the bulk write, they are listed in the result with the index of the
+ * operation. An ordered bulk write stops at the first of them.<p>
+ * The documents of the operations are copied, since the driver encodes them later on its own thread, unless they are
+ * passed already converted by the caller, which does not change them anymore.<p>
+ */
+class BulkWrite {
+
+  // The largest number of operations the server accepts in a single write command
+  static final int MAX_BATCH_SIZE = 1000;
+  // The largest document the server accepts, a write command may only exceed it by 16KB for the command itself
+  static final int MAX_BSON_OBJECT_SIZE = 16 * 1024 * 1024;
+
+  private static final int BSON_OBJECT_TOO_LARGE = 10334;
+
+  private static final String INSERT = "insert";
+  private static final String UPDATE = "update";
+  private static final String DELETE = "delete";
+
+  private final String collection;
+  private final boolean ordered;
+  private final Document writeConcern;
+  private final List<Batch> batches = new ArrayList<>();
+  // The batch of each kind operations are added to when unordered
+  private final Map<String, Batch> openBatches = new HashMap<>();
+
+  private int nInserted;
+  private int nMatched;
+  private int nModified;
+  private int nUpserted;
+  private int nRemoved;
+  private final JsonArray insertedIds = new JsonArray();
+  private final JsonArray upserted = new JsonArray();
+  private final JsonArray writeErrors = new JsonArray();
+  private final JsonArray writeConcernErrors = new JsonArray();
+
+  BulkWrite(String collection, List<JsonObject> operations, boolean ordered, WriteConcern writeConcern,
+            JsonObjectCodec codec) {
+    this(collection, ordered, writeConcern);
+    for (int i = 0; i < operations.size(); i++) {
+      JsonObject operation = operations.get(i);
+      if (operation == null || operation.size() != 1) {
+        throw new IllegalArgumentException("Operation " + i + " must have a single field");
+      }
+      String name = operation.fieldNames().iterator().next();
+      JsonObject args = operation.getJsonObject(name);
+      if (args == null) {
+        throw new IllegalArgumentException("Operation " + i + " must be an object");
+      }
+      switch (name) {
+        case "insertOne": {
+          JsonObject document = required(args, "document", i);
+          codec.generateIdIfAbsentFromDocument(document);
+          add(INSERT, i, toDocument(document), document.getValue(JsonObjectCodec.ID_FIELD));
+          break;
+        }
+        case "updateOne":
+        case "updateMany":
+          add(UPDATE, i, new Document("q", toDocument(required(args, "filter", i)))
+            .append("u", toDocument(required(args, "update", i)))
+            .append("upsert", args.getBoolean("upsert", false))
+            .append("multi", name.equals("updateMany")), null);
+          break;
+        case "replaceOne":
+          add(UPDATE, i, new Document("q", toDocument(required(args, "filter", i)))
+            .append("u", toDocument(required(args, "replacement", i)))
+            .append("upsert", args.getBoolean("upsert", false))
+            .append("multi", false), null);
+          break;
+        case "deleteOne":
+        case "deleteMany":
+          add(DELETE, i, new Document("q", toDocument(required(args, "filter", i)))
+            .append("limit", name.equals("deleteOne") ? 1 : 0), null);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown operation " + name + " at index " + i);
+      }
+    }
+  }
+
+  /**
+   * An unordered bulk write inserting documents already converted, which the caller does not change anymore.
+   */
+  BulkWrite(String collection, List<Document> documents, WriteConcern writeConcern) {
+    this(collection, false, writeConcern);
+    for (int i = 0; i < documents.size(); i++) {
+      Document document = documents.get(i);
+      add(INSERT, i, document, document.get(JsonObjectCodec.ID_FIELD));
+    }
+  }
+
+  private BulkWrite(String collection, boolean ordered, WriteConcern writeConcern) {
+    this.collection = collection;
+    this.ordered = ordered;
+    this.writeConcern = writeConcern != null && writeConcern.getWObject() != null ? writeConcernDocument(writeConcern) : null;
+  }
+
+  private static JsonObject required(JsonObject args, String field, int index) {
+    JsonObject value = args.getJsonObject(field);
+    if (value == null) {
+      throw new IllegalArgumentException("Operation " + index + " has no " + field);
+    }
+    return value;
+  }
+
+  private void add(String kind, int index, Document entry, Object id) {
+    int size = bsonSize(entry);
+    if (size > MAX_BSON_OBJECT_SIZE) {
+      Batch batch = new Batch(kind);
+      batch.tooLarge = true;
+      batch.indexes.add(index);
+      batches.add(batch);
+      return;
+    }
+    Batch batch;
+    if (ordered) {
+      batch = batches.isEmpty() ? null : batches.get(batches.size() - 1);
+      if (batch != null && (!batch.kind.equals(kind) || batch.tooLarge)) {
+        batch = null;
+      }
+    } else {
+      batch = openBatches.get(kind);
+    }
+    if (batch != null && (batch.indexes.size() == MAX_BATCH_SIZE || batch.size + size > MAX_BSON_OBJECT_SIZE)) {
+      batch = null;
+    }
+    if (batch == null) {
+      batch = new Batch(kind);
+      batches.add(batch);
+      openBatches.put(kind, batch);
+    }
+    batch.indexes.add(index);
+    batch.entries.add(entry);
+    batch.ids.add(id);
+    // The entry is an element of the array of the command, named by its index
+    batch.size += size + 2 + digits(batch.entries.size() - 1);
+  }
+
+  /**
+   * @return the size of the value encoded in BSON, without its type and name
+   */
+  @SuppressWarnings("unchecked")
+  static int bsonSize(Object value) {
+    if (value instanceof Map) {
+      int size = 5;
+      for (Map.Entry<String, Object> entry: ((Map<String, Object>) value).entrySet()) {
+        size += 2 + utf8Length(entry.getKey()) + bsonSize(entry.getValue());
+      }
+      return size;
+    } else if (value instanceof List) {
+      int size = 5;
+      int index = 0;
+      for (Object element: (List<Object>) value) {
+        size += 2 + digits(index++) + bsonSize(element);
+      }
+      return size;
+    } else if (value instanceof String) {
+      return 5 + utf8Length((String) value);
+    } else if (value instanceof byte[]) {
+      return 5 + ((byte[]) value).length;
+    } else if (value instanceof ObjectId) {
+      return 12;
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return 4;
+    } else if (value instanceof Boolean) {
+      return 1;
+    } else if (value == null) {
+      return 0;
+    } else {
+      // Long, Double, Float, Date and the other values encoded in 8 bytes
+      return 8;
+    }
+  }
+
+  private static int utf8Length(String s) {
+    int length = s.length();
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= 0x800) {
+        // Two bytes more, or one byte more for each char of a surrogate pair
+        length += Character.isSurrogate(c) ? 1 : 2;
+      } else if (c >= 0x80) {
+        length++;
+      }
+    }
+    return length;
+  }
+
+  private static int digits(int i) {
+    int digits = 1;
+    while (i >= 10) {
+      i /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  /**
+   * Send the commands, the result handler is called on the context.
+   */
+  void execute(MongoDatabase db, Context context, Handler<AsyncResult<JsonObject>> resultHandler) {
+    execute(db, 0, ar -> context.runOnContext(v -> resultHandler.handle(ar)));
+  }
+
+  /**
+   * Send the commands, the result handler is called from the driver callback of the last command.
+   */
+  void execute(MongoDatabase db, Handler<AsyncResult<JsonObject>> resultHandler) {
+    execute(db, 0, resultHandler);
+  }
+
+  private void execute(MongoDatabase db, int next, Handler<AsyncResult<JsonObject>> resultHandler) {
+    if (next == batches.size()) {
+      resultHandler.handle(Future.completedFuture(result()));
+      return;
+    }
+    Batch batch = batches.get(next);
+    if (batch.tooLarge) {
+      writeErrors.add(new JsonObject().put("index", batch.indexes.get(0)).put("code", BSON_OBJECT_TOO_LARGE)
+        .put("errmsg", "The operation is larger than the maximum document size of " + MAX_BSON_OBJECT_SIZE + " bytes"));
+      if (ordered) {
+        resultHandler.handle(Future.completedFuture(result()));
+      } else {
+        execute(db, next + 1, resultHandler);
+      }
+      return;
+    }
+    MongoFuture<Document> future = db.executeCommand(batch.command());
+    future.register((reply, e) -> {
+      if (e != null) {
+        resultHandler.handle(Future.completedFuture(e));
+      } else if (!apply(batch, reply) && ordered) {
+        // The remaining batches are not sent
+        resultHandler.handle(Future.completedFuture(result()));
+      } else {
+        execute(db, next + 1, resultHandler);
+      }
+    });
+  }
+
+  /**
+   * Add the reply of a batch to the result.
+   *
+   * @return whether all the operations of the batch succeeded
+   */
+  @SuppressWarnings("unchecked")
+  private boolean apply(Batch batch, Document reply) {
+    int n = intValue(reply.get("n"));
+    boolean[] failed = new boolean[batch.indexes.size()];
+    int firstFailed = failed.length;
+    List<Document> errors = (List<Document>) reply.get("writeErrors");
+    if (errors != null) {
+      for (Document error: errors) {
+        int local = intValue(error.get("index"));
+        failed[local] = true;
+        firstFailed = Math.min(firstFailed, local);
+        writeErrors.add(new JsonObject().put("index", batch.indexes.get(local)).put("code", intValue(error.get("code")))
+          .put("errmsg", (String) error.get("errmsg")));
+      }
+    }
+    Document writeConcernError = (Document) reply.get("writeConcernError");
+    if (writeConcernError != null) {
+      writeConcernErrors.add(toJson(writeConcernError));
+    }
+    switch (batch.kind) {
+      case INSERT:
+        nInserted += n;
+        for (int i = 0; i < failed.length; i++) {
+          if (!failed[i] && (!ordered || i < firstFailed)) {
+            insertedIds.add(new JsonObject().put("index", batch.indexes.get(i)).put("_id", idValue(batch.ids.get(i))));
+          }
+        }
+        break;
+      case UPDATE:
+        List<Document> upserts = (List<Document>) reply.get("upserted");
+        int count = upserts != null ? upserts.size() : 0;
+        if (upserts != null) {
+          for (Document upsert: upserts) {
+            upserted.add(new JsonObject().put("index", batch.indexes.get(intValue(upsert.get("index"))))
+              .put("_id", idValue(upsert.get("_id"))));
+          }
+        }
+        nUpserted += count;
+        nMatched += n - count;
+        nModified += intValue(reply.get("nModified"));
+        break;
+      default:
+        nRemoved += n;
+    }
+    return errors == null || errors.isEmpty();
+  }
+
+  private JsonObject result() {
+    return new JsonObject()
+      .put("nInserted", nInserted)
+      .put("nMatched", nMatched)
+      .put("nModified", nModified)
+      .put("nUpserted", nUpserted)
+      .put("nRemoved", nRemoved)
+      .put("insertedIds", insertedIds)
+      .put("upserted", upserted)
+      .put("writeErrors", writeErrors)
+      .put("writeConcernErrors", writeConcernErrors);
+  }
+
+  private static int intValue(Object value) {
+    return value instanceof Number ? ((Number) value).intValue() : 0;
+  }
+
+  private static Object idValue(Object id) {
+    return id instanceof ObjectId ? ((ObjectId) id).toHexString() : id;
+  }
+
+  private static Document writeConcernDocument(WriteConcern writeConcern) {
+    Document doc = new Document("w", writeConcern.getWObject());
+    if (writeConcern.getWtimeout() > 0) {
+      doc.append("wtimeout", writeConcern.getWtimeout());
+    }
+    if (writeConcern.getJ()) {
+      doc.append("j", true);
+    }
+    if (writeConcern.getFsync()) {
+      doc.append("fsync", true);
+    }
+    return doc;
+  }
+
+  private class Batch {
+
+    final String kind;
+    // The index of each operation in the bulk write, its entry in the command and the _id of inserted documents
+    final List<Integer> indexes = new ArrayList<>();
+    final List<Document> entries = new ArrayList<>();
+    final List<Object> ids = new ArrayList<>();
+    // The encoded size of the entries, or whether the batch is a single entry too large to be sent
+    int size;
+    boolean tooLarge;
+
+    Batch(String kind) {
+      this.kind = kind;
+    }
+
+    Document command() {
+      String field = kind.equals(INSERT) ? "documents" : kind.equals(UPDATE) ? "updates" : "deletes";
+      Document command = new Document(kind, collection).append(field, entries).append("ordered", ordered);
+      if (writeConcern != null) {
+        command.append("writeConcern", writeConcern);
+      }
+      return command;
+    }
+  }
+}
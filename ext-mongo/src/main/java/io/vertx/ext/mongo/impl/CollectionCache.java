@@ -0,0 +1,145 @@
+package io.vertx.ext.mongo.impl;
+
+import com.mongodb.async.client.MongoClientSettings;
+import com.mongodb.async.client.MongoCollection;
+import com.mongodb.async.client.MongoCollectionOptions;
+import com.mongodb.async.client.MongoDatabase;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.WriteOptions;
+import io.vertx.ext.mongo.impl.codec.json.JsonObjectCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.vertx.ext.mongo.impl.Utils.*;
+
+/**
+ * The collection handles used by the service, so that the options of a collection are not resolved again on each
+ * operation.<p>
+ * Handles are kept per collection name and write concern, looked up without locking. Once there are more than
+ * {@code maxSize} of them, the least recently used ones are evicted down to 90% of {@code maxSize}, so that eviction,
+ * which sorts the handles, stays rare. The read preference is the one of the client, so it is the same for all of them.
+ * The resolved options are kept per write concern, up to {@code maxSize} write concerns.<p>
+ * Instances can be used concurrently.<p>
+ */
+class CollectionCache {
+
+  private final MongoDatabase db;
+  private final JsonObjectCodec codec;
+  private final MongoClientSettings settings;
+  private final int maxSize;
+  private final MongoCollectionOptions defaultOptions;
+  private final Map<String, MongoCollectionOptions> options = new ConcurrentHashMap<>();
+  private final Map<Key, Entry> collections = new ConcurrentHashMap<>();
+
+  CollectionCache(MongoDatabase db, JsonObjectCodec codec, MongoClientSettings settings, int maxSize) {
+    this.db = db;
+    this.codec = codec;
+    this.settings = settings;
+    this.maxSize = maxSize;
+    this.defaultOptions = collectionOptions(new WriteOptions(), settings);
+  }
+
+  /**
+   * @return the options of the collections written with the write concern of {@code writeOptions}
+   */
+  MongoCollectionOptions options(WriteOptions writeOptions) {
+    String writeConcern = writeOptions.getWriteConcern();
+    if (writeConcern == null) {
+      return defaultOptions;
+    }
+    MongoCollectionOptions resolved = options.get(writeConcern);
+    if (resolved == null) {
+      resolved = collectionOptions(writeOptions, settings);
+      if (options.size() < maxSize) {
+        options.put(writeConcern, resolved);
+      }
+    }
+    return resolved;
+  }
+
+  /**
+   * @return the handle of the collection written with the write concern of {@code writeOptions}
+   */
+  MongoCollection<JsonObject> get(String name, WriteOptions writeOptions) {
+    Key key = new Key(name, writeOptions.getWriteConcern());
+    Entry entry = collections.get(key);
+    if (entry != null) {
+      entry.accessed = System.nanoTime();
+      return entry.collection;
+    }
+    entry = new Entry(db.getCollection(name, codec, options(writeOptions)));
+    Entry existing = collections.putIfAbsent(key, entry);
+    if (existing != null) {
+      return existing.collection;
+    }
+    if (collections.size() > maxSize) {
+      evict();
+    }
+    return entry.collection;
+  }
+
+  void clear() {
+    options.clear();
+    collections.clear();
+  }
+
+  private synchronized void evict() {
+    if (collections.size() <= maxSize) {
+      // Evicted by another thread already
+      return;
+    }
+    List<Map.Entry<Key, Entry>> lru = new ArrayList<>(collections.entrySet());
+    lru.sort((e1, e2) -> Long.compare(e1.getValue().accessed, e2.getValue().accessed));
+    int target = maxSize - maxSize / 10;
+    int count = lru.size();
+    for (Map.Entry<Key, Entry> e: lru) {
+      if (count <= target) {
+        break;
+      }
+      collections.remove(e.getKey(), e.getValue());
+      count--;
+    }
+  }
+
+  private static class Entry {
+
+    final MongoCollection<JsonObject> collection;
+    volatile long accessed = System.nanoTime();
+
+    Entry(MongoCollection<JsonObject> collection) {
+      this.collection = collection;
+    }
+  }
+
+  private static class Key {
+
+    final String name;
+    final String writeConcern;
+
+    Key(String name, String writeConcern) {
+      this.name = name;
+      this.writeConcern = writeConcern;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return name.equals(other.name) &&
+        (writeConcern == null ? other.writeConcern == null : writeConcern.equals(other.writeConcern));
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * name.hashCode() + (writeConcern != null ? writeConcern.hashCode() : 0);
+    }
+  }
+}
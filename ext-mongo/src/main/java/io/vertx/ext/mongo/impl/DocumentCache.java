@@ -0,0 +1,150 @@
+package io.vertx.ext.mongo.impl;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.vertx.ext.mongo.impl.codec.json.JsonObjectCodec.ID_FIELD;
+
+/**
+ * The documents of a collection looked up by id, kept to answer the next lookups of the same ids without querying
+ * the database.<p>
+ * At most {@code max_size} documents are kept, each one for at most {@code ttl} ms. When the cache is full, the least
+ * recently used document is evicted for a new one only if the new one was looked up more often, as estimated by a
+ * {@link FrequencySketch}, so that a burst of one-off lookups does not evict the hot documents.<p>
+ * The service invalidates the cached documents when it writes to the collection, a document read before a write
+ * completed is not cached after it: {@link #generation()} is taken before querying the database and passed to
+ * {@link #put(Object, JsonObject, long)}, which ignores the document when an invalidation happened since. Writes
+ * invalidate both when they are sent and when they complete.<p>
+ * Documents are copied in and out of the cache. Instances can be used concurrently.<p>
+ */
+class DocumentCache {
+
+  private static final int DEFAULT_MAX_SIZE = 10000;
+  private static final long DEFAULT_TTL = 60000;
+
+  private final int maxSize;
+  private final long ttl;
+  private final FrequencySketch sketch;
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long generation;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  DocumentCache(JsonObject config) {
+    maxSize = config.getInteger("max_size", DEFAULT_MAX_SIZE);
+    ttl = config.getLong("ttl", DEFAULT_TTL);
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("max_size must be > 0");
+    }
+    if (ttl < 1) {
+      throw new IllegalArgumentException("ttl must be > 0");
+    }
+    sketch = new FrequencySketch(maxSize);
+  }
+
+  /**
+   * @return the id a query looks a single document up by, or {@code null} when it is not a lookup by id
+   */
+  static Object idOf(JsonObject query) {
+    if (query.size() != 1) {
+      return null;
+    }
+    return key(query.getValue(ID_FIELD));
+  }
+
+  /**
+   * @return the key of the document with this id, or {@code null} when the documents with such ids are not cached
+   */
+  static Object key(Object id) {
+    if (id instanceof String) {
+      return id;
+    } else if (id instanceof Integer || id instanceof Long || id instanceof Short || id instanceof Byte) {
+      // The same id may come as an Integer or as a Long depending on how the query was built
+      return ((Number) id).longValue();
+    }
+    return null;
+  }
+
+  /**
+   * @return a copy of the document or {@code null} when it is not cached
+   */
+  JsonObject get(Object key) {
+    JsonObject document = null;
+    synchronized (this) {
+      sketch.increment(key);
+      Entry entry = entries.get(key);
+      if (entry != null && entry.expiration - System.nanoTime() > 0) {
+        document = entry.document;
+        hits++;
+      } else {
+        if (entry != null) {
+          entries.remove(key);
+        }
+        misses++;
+      }
+    }
+    return document != null ? document.copy() : null;
+  }
+
+  synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Cache a copy of the document read from the database, unless it was invalidated since {@code generation}.
+   */
+  void put(Object key, JsonObject document, long generation) {
+    Entry entry = new Entry(document.copy(), System.nanoTime() + ttl * 1000000);
+    synchronized (this) {
+      if (generation != this.generation) {
+        return;
+      }
+      if (entries.size() >= maxSize && !entries.containsKey(key)) {
+        Iterator<Map.Entry<Object, Entry>> it = entries.entrySet().iterator();
+        Map.Entry<Object, Entry> eldest = it.next();
+        boolean expired = eldest.getValue().expiration - System.nanoTime() <= 0;
+        if (!expired && sketch.frequency(key) <= sketch.frequency(eldest.getKey())) {
+          return;
+        }
+        it.remove();
+        evictions++;
+      }
+      entries.put(key, entry);
+    }
+  }
+
+  /**
+   * Invalidate the document with this key, or all the documents when the key is {@code null}.
+   */
+  synchronized void invalidate(Object key) {
+    generation++;
+    if (key != null) {
+      entries.remove(key);
+    } else {
+      entries.clear();
+    }
+  }
+
+  synchronized JsonObject metrics() {
+    return new JsonObject()
+      .put("hits", hits)
+      .put("misses", misses)
+      .put("evictions", evictions)
+      .put("size", entries.size());
+  }
+
+  private static class Entry {
+
+    final JsonObject document;
+    final long expiration;
+
+    Entry(JsonObject document, long expiration) {
+      this.document = document;
+      this.expiration = expiration;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package io.vertx.ext.mongo.impl;
+
+/**
+ * A count-min sketch estimating how often keys were looked up recently, used by {@link DocumentCache} to admit a new
+ * document only if it is looked up more often than the one it would evict.<p>
+ * Each key is counted in one counter of each of the four rows, its frequency is the lowest of these counters. Counters
+ * saturate at 15 and all of them are halved once {@code 10 * width} keys were counted, so that the estimates follow
+ * recent lookups.<p>
+ * Instances are not thread-safe.<p>
+ */
+class FrequencySketch {
+
+  private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+  private static final int MAX_COUNT = 15;
+
+  private final byte[][] rows;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  FrequencySketch(int size) {
+    int width = Integer.highestOneBit(Math.max(16, size - 1) << 1);
+    rows = new byte[SEEDS.length][width];
+    mask = width - 1;
+    sampleSize = 10 * width;
+  }
+
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (int i = 0; i < rows.length; i++) {
+      int index = indexOf(hash, i);
+      if (rows[i][index] < MAX_COUNT) {
+        rows[i][index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < rows.length; i++) {
+      frequency = Math.min(frequency, rows[i][indexOf(hash, i)]);
+    }
+    return frequency;
+  }
+
+  private void reset() {
+    for (byte[] row : rows) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] >>= 1;
+      }
+    }
+    additions /= 2;
+  }
+
+  private int indexOf(int hash, int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return (int) h & mask;
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
@@ -11,23 +11,34 @@ import com.mongodb.async.client.MongoCollection;
 import com.mongodb.async.client.MongoDatabase;
 import com.mongodb.async.client.MongoView;
 import io.vertx.core.AsyncResult;
-import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.impl.LoggerFactory;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.BulkWriteOptions;
 import io.vertx.ext.mongo.InsertOptions;
 import io.vertx.ext.mongo.MongoService;
 import io.vertx.ext.mongo.UpdateOptions;
 import io.vertx.ext.mongo.WriteOptions;
+import io.vertx.ext.mongo.impl.codec.buffer.BsonBufferCodec;
+import io.vertx.ext.mongo.impl.codec.buffer.JsonBufferCodec;
 import io.vertx.ext.mongo.impl.codec.json.JsonObjectCodec;
 import org.bson.Document;
+import org.bson.codecs.CollectibleCodec;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static io.vertx.ext.mongo.impl.Utils.*;
 import static java.util.Objects.*;
@@ -38,6 +49,7 @@ import static java.util.Objects.*;
 public class MongoServiceImpl implements MongoService {
 
   private static final Logger log = LoggerFactory.getLogger(MongoServiceImpl.class);
+  private static final WriteOptions DEFAULT_WRITE_OPTIONS = new WriteOptions();
 
   private final Vertx vertx;
   private final JsonObject config;
@@ -46,6 +58,13 @@ public class MongoServiceImpl implements MongoService {
   protected MongoDatabase db;
   private MongoClientSettings mongoClientSettings;
   private JsonObjectCodec codec;
+  private long cursorTimeout;
+  private CollectionCache collections;
+  private final Map<String, DocumentCache> documentCaches = new HashMap<>();
+  private SingleFlight singleFlight;
+  private final Map<String, WriteBehindQueue> writeBehindQueues = new HashMap<>();
+  private final ResultDispatcher dispatcher = new ResultDispatcher();
+  private final Map<String, BatchCursor> cursors = new ConcurrentHashMap<>();
 
   public MongoServiceImpl(Vertx vertx, JsonObject config) {
     this.vertx = vertx;
@@ -55,6 +74,14 @@ public class MongoServiceImpl implements MongoService {
   public void start() {
     String connectionString = config.getString("connection_string", "mongodb://localhost:27017");
     String dbName = config.getString("db_name", "default_db");
+    cursorTimeout = config.getLong("cursor_timeout", 10l * 60 * 1000);
+    if (config.getBoolean("coalesce_queries", false)) {
+      singleFlight = new SingleFlight(dispatcher);
+    }
+    JsonObject documentCache = config.getJsonObject("document_cache", new JsonObject());
+    for (String collection : documentCache.fieldNames()) {
+      documentCaches.put(collection, new DocumentCache(documentCache.getJsonObject(collection)));
+    }
 
     codec = new JsonObjectCodec();
 
@@ -78,12 +105,22 @@ public class MongoServiceImpl implements MongoService {
 
     mongo = MongoClients.create(mongoClientSettings);
     db = mongo.getDatabase(dbName);
+    collections = new CollectionCache(db, codec, mongoClientSettings, config.getInteger("collection_cache_size", 100));
+    JsonObject writeBehind = config.getJsonObject("write_behind", new JsonObject());
+    WriteConcern writeConcern = collections.options(DEFAULT_WRITE_OPTIONS).getWriteConcern();
+    for (String collection : writeBehind.fieldNames()) {
+      writeBehindQueues.put(collection, new WriteBehindQueue(vertx, db, codec, dispatcher, collection, writeConcern, writeBehind.getJsonObject(collection)));
+    }
 
     log.debug("mongoDB service started");
   }
 
   @Override
   public void stop() {
+    cursors.values().forEach(cursor -> vertx.cancelTimer(cursor.timerID));
+    cursors.clear();
+    writeBehindQueues.values().forEach(WriteBehindQueue::close);
+    collections.clear();
     mongo.close();
     log.debug("mongoDB service stopped");
   }
@@ -97,9 +134,12 @@ public class MongoServiceImpl implements MongoService {
 
     //FIXME: Use MongoCollection<JsonObject> when https://jira.mongodb.org/browse/JAVA-1325 is complete and no need for this genId malarkey
     boolean insert = !codec.documentHasId(document);
+    if (!insert) {
+      resultHandler = invalidate(collection, document.getValue(JsonObjectCodec.ID_FIELD), false, resultHandler);
+    }
 
     codec.generateIdIfAbsentFromDocument(document);
-    MongoCollection<Document> coll = db.getCollection(collection, collectionOptions(options, mongoClientSettings));
+    MongoCollection<Document> coll = db.getCollection(collection, collections.options(options));
 
     //TODO: Consider returning WriteConcernResult as a JsonObject, instead of just the id mayhaps ?
     MongoFuture<WriteConcernResult> future = coll.save(toDocument(document));
@@ -119,6 +159,12 @@ public class MongoServiceImpl implements MongoService {
     requireNonNull(options, "options cannot be null");
     requireNonNull(resultHandler, "resultHandler cannot be null");
 
+    WriteBehindQueue queue = writeBehindQueues.get(collection);
+    if (queue != null && options.getWriteConcern() == null) {
+      queue.insert(document, vertx.context(), resultHandler);
+      return;
+    }
+
     boolean insert = !codec.documentHasId(document);
 
     MongoCollection<JsonObject> coll = getCollection(collection, options);
@@ -132,6 +178,57 @@ public class MongoServiceImpl implements MongoService {
     });
   }
 
+  @Override
+  public boolean writeQueueFull(String collection) {
+    requireNonNull(collection, "collection cannot be null");
+
+    WriteBehindQueue queue = writeBehindQueues.get(collection);
+    return queue != null && queue.isFull();
+  }
+
+  @Override
+  public void drainHandler(String collection, Handler<Void> handler) {
+    requireNonNull(collection, "collection cannot be null");
+    requireNonNull(handler, "handler cannot be null");
+
+    WriteBehindQueue queue = writeBehindQueues.get(collection);
+    if (queue != null) {
+      queue.drainHandler(vertx.context(), handler);
+    } else {
+      vertx.context().runOnContext(handler);
+    }
+  }
+
+  @Override
+  public void insertMany(String collection, List<JsonObject> documents, InsertOptions options, Handler<AsyncResult<JsonObject>> resultHandler) {
+    requireNonNull(collection, "collection cannot be null");
+    requireNonNull(documents, "documents cannot be null");
+    requireNonNull(options, "options cannot be null");
+    requireNonNull(resultHandler, "resultHandler cannot be null");
+
+    List<JsonObject> operations = new ArrayList<>(documents.size());
+    for (JsonObject document : documents) {
+      operations.add(new JsonObject().put("insertOne", new JsonObject().put("document", document)));
+    }
+    bulkWrite(collection, operations, !isFalse(options.isOrdered()), options, resultHandler);
+  }
+
+  @Override
+  public void bulkWrite(String collection, List<JsonObject> operations, BulkWriteOptions options, Handler<AsyncResult<JsonObject>> resultHandler) {
+    requireNonNull(collection, "collection cannot be null");
+    requireNonNull(operations, "operations cannot be null");
+    requireNonNull(options, "options cannot be null");
+    requireNonNull(resultHandler, "resultHandler cannot be null");
+
+    bulkWrite(collection, operations, !isFalse(options.isOrdered()), options, resultHandler);
+  }
+
+  private void bulkWrite(String collection, List<JsonObject> operations, boolean ordered, WriteOptions options, Handler<AsyncResult<JsonObject>> resultHandler) {
+    WriteConcern writeConcern = collections.options(options).getWriteConcern();
+    BulkWrite bulk = new BulkWrite(collection, operations, ordered, writeConcern, codec);
+    bulk.execute(db, vertx.context(), invalidate(collection, null, true, resultHandler));
+  }
+
   @Override
   public void update(String collection, JsonObject query, JsonObject update, UpdateOptions options, Handler<AsyncResult<Void>> resultHandler) {
     requireNonNull(collection, "collection cannot be null");
@@ -140,6 +237,7 @@ public class MongoServiceImpl implements MongoService {
     requireNonNull(options, "options cannot be null");
     requireNonNull(resultHandler, "resultHandler cannot be null");
 
+    resultHandler = invalidate(collection, query, resultHandler);
     MongoView<JsonObject> view = getView(collection, query, null, null, -1, -1);
     if (isTrue(options.isUpsert())) {
       view.upsert();
@@ -161,6 +259,7 @@ public class MongoServiceImpl implements MongoService {
     requireNonNull(options, "options cannot be null");
     requireNonNull(resultHandler, "resultHandler cannot be null");
 
+    resultHandler = invalidate(collection, query, resultHandler);
     //FIXME: Use typed API when mongo driver is updated
     MongoView view = getView(collection, query, null, null, -1, -1);
     if (isTrue(options.isUpsert())) {
@@ -177,21 +276,156 @@ public class MongoServiceImpl implements MongoService {
     requireNonNull(query, "query cannot be null");
     requireNonNull(resultHandler, "resultHandler cannot be null");
 
-    MongoView<JsonObject> view = getView(collection, query, fields, sort, limit, skip);
-    List<JsonObject> results = new ArrayList<>();
-    MongoFuture<List<JsonObject>> future = view.into(results);
+    DocumentCache cache = documentCaches.get(collection);
+    Object id = cache != null && fields == null && skip <= 0 ? DocumentCache.idOf(query) : null;
+    Handler<AsyncResult<List<JsonObject>>> handler = resultHandler;
+    if (id != null) {
+      JsonObject document = cache.get(id);
+      if (document != null) {
+        List<JsonObject> results = new ArrayList<>(1);
+        results.add(document);
+        dispatcher.completeOnContext(vertx.context(), results, null, handler);
+        return;
+      }
+      long generation = cache.generation();
+      resultHandler = ar -> {
+        if (ar.succeeded() && ar.result().size() == 1) {
+          cache.put(id, ar.result().get(0), generation);
+        }
+        handler.handle(ar);
+      };
+    }
+
+    coalesce("find", collection, query, fields, sort, limit, skip, () -> {
+      MongoView<JsonObject> view = getView(collection, query, fields, sort, limit, skip);
+      List<JsonObject> results = new ArrayList<>();
+      return view.into(results);
+    }, MongoServiceImpl::copy, resultHandler);
+  }
+
+  @Override
+  public void findRaw(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, Handler<AsyncResult<List<Buffer>>> resultHandler) {
+    requireNonNull(collection, "collection cannot be null");
+    requireNonNull(query, "query cannot be null");
+    requireNonNull(resultHandler, "resultHandler cannot be null");
+
+    MongoView<Buffer> view = getView(getCollection(collection, new BsonBufferCodec()), query, fields, sort, limit, skip);
+    List<Buffer> results = new ArrayList<>();
+    MongoFuture<List<Buffer>> future = view.into(results);
     handleFuture(future, resultHandler);
   }
 
+  @Override
+  public void findJson(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, Handler<AsyncResult<Buffer>> resultHandler) {
+    requireNonNull(collection, "collection cannot be null");
+    requireNonNull(query, "query cannot be null");
+    requireNonNull(resultHandler, "resultHandler cannot be null");
+
+    // All the documents are decoded into the buffer of the codec, there is nothing to collect
+    JsonBufferCodec jsonCodec = new JsonBufferCodec();
+    MongoView<Buffer> view = getView(getCollection(collection, jsonCodec), query, fields, sort, limit, skip);
+    MongoFuture<Void> future = view.forEach(buffer -> {});
+    adaptFuture(future, resultHandler, v -> jsonCodec.end());
+  }
+
+  @Override
+  public ReadStream<JsonObject> findStream(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, int batchSize) {
+    requireNonNull(collection, "collection cannot be null");
+    requireNonNull(query, "query cannot be null");
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be > 0");
+    }
+
+    BatchCursor cursor = new BatchCursor(idCodec -> getCollection(collection, idCodec), query, fields, sort, limit, skip, batchSize);
+    return new BatchReadStream(cursor, vertx.context());
+  }
+
+  @Override
+  public void findBatch(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip, int batchSize, Handler<AsyncResult<JsonObject>> resultHandler) {
+    requireNonNull(collection, "collection cannot be null");
+    requireNonNull(query, "query cannot be null");
+    requireNonNull(resultHandler, "resultHandler cannot be null");
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be > 0");
+    }
+
+    BatchCursor cursor = new BatchCursor(idCodec -> getCollection(collection, idCodec), query, fields, sort, limit, skip, batchSize);
+    nextBatch(UUID.randomUUID().toString(), cursor, resultHandler);
+  }
+
+  @Override
+  public void findNextBatch(String cursorID, Handler<AsyncResult<JsonObject>> resultHandler) {
+    requireNonNull(cursorID, "cursor cannot be null");
+    requireNonNull(resultHandler, "resultHandler cannot be null");
+
+    // The cursor is put back once the batch is fetched, so that it is never used for two batches at once
+    BatchCursor cursor = cursors.remove(cursorID);
+    if (cursor == null) {
+      dispatcher.completeOnContext(vertx.context(), null, new IllegalStateException("No cursor " + cursorID), resultHandler);
+      return;
+    }
+    vertx.cancelTimer(cursor.timerID);
+    nextBatch(cursorID, cursor, resultHandler);
+  }
+
+  @Override
+  public void closeCursor(String cursorID, Handler<AsyncResult<Void>> resultHandler) {
+    requireNonNull(cursorID, "cursor cannot be null");
+    requireNonNull(resultHandler, "resultHandler cannot be null");
+
+    BatchCursor cursor = cursors.remove(cursorID);
+    if (cursor != null) {
+      vertx.cancelTimer(cursor.timerID);
+    }
+    dispatcher.completeOnContext(vertx.context(), null, null, resultHandler);
+  }
+
+  private void nextBatch(String cursorID, BatchCursor cursor, Handler<AsyncResult<JsonObject>> resultHandler) {
+    cursor.next(vertx.context(), ar -> {
+      if (ar.failed()) {
+        resultHandler.handle(Future.completedFuture(ar.cause()));
+        return;
+      }
+      JsonArray results = new JsonArray();
+      ar.result().forEach(results::add);
+      JsonObject batch = new JsonObject().put("results", results);
+      if (!cursor.isExhausted()) {
+        cursor.timerID = vertx.setTimer(cursorTimeout, id -> cursors.remove(cursorID, cursor));
+        cursors.put(cursorID, cursor);
+        batch.put("cursor", cursorID);
+      }
+      resultHandler.handle(Future.completedFuture(batch));
+    });
+  }
+
   @Override
   public void findOne(String collection, JsonObject query, JsonObject fields, Handler<AsyncResult<JsonObject>> resultHandler) {
     requireNonNull(collection, "collection cannot be null");
     requireNonNull(query, "query cannot be null");
     requireNonNull(resultHandler, "resultHandler cannot be null");
 
-    MongoView<JsonObject> view = getView(collection, query, fields, null, -1, -1);
-    MongoFuture<JsonObject> future = view.one();
-    handleFuture(future, resultHandler);
+    DocumentCache cache = documentCaches.get(collection);
+    Object id = cache != null && fields == null ? DocumentCache.idOf(query) : null;
+    Handler<AsyncResult<JsonObject>> handler = resultHandler;
+    if (id != null) {
+      JsonObject document = cache.get(id);
+      if (document != null) {
+        dispatcher.completeOnContext(vertx.context(), document, null, handler);
+        return;
+      }
+      long generation = cache.generation();
+      resultHandler = ar -> {
+        if (ar.succeeded() && ar.result() != null) {
+          cache.put(id, ar.result(), generation);
+        }
+        handler.handle(ar);
+      };
+    }
+
+    coalesce("findOne", collection, query, fields, null, -1, -1, () -> {
+      MongoView<JsonObject> view = getView(collection, query, fields, null, -1, -1);
+      return view.one();
+    }, doc -> doc != null ? doc.copy() : null, resultHandler);
   }
 
   @Override
@@ -200,9 +434,10 @@ public class MongoServiceImpl implements MongoService {
     requireNonNull(query, "query cannot be null");
     requireNonNull(resultHandler, "resultHandler cannot be null");
 
-    MongoView<JsonObject> view = getView(collection, query, null, null, -1, -1);
-    MongoFuture<Long> future = view.count();
-    handleFuture(future, resultHandler);
+    coalesce("count", collection, query, null, null, -1, -1, () -> {
+      MongoView<JsonObject> view = getView(collection, query, null, null, -1, -1);
+      return view.count();
+    }, Function.identity(), resultHandler);
   }
 
   @Override
@@ -212,6 +447,7 @@ public class MongoServiceImpl implements MongoService {
     requireNonNull(options, "options cannot be null");
     requireNonNull(resultHandler, "resultHandler cannot be null");
 
+    resultHandler = invalidate(collection, query, resultHandler);
     MongoView<JsonObject> view = getView(collection, query, null, null, -1, -1);
     MongoFuture<WriteConcernResult> future = view.remove();
     adaptFuture(future, resultHandler);
@@ -224,6 +460,7 @@ public class MongoServiceImpl implements MongoService {
     requireNonNull(options, "options cannot be null");
     requireNonNull(resultHandler, "resultHandler cannot be null");
 
+    resultHandler = invalidate(collection, query, resultHandler);
     MongoView<JsonObject> view = getView(collection, query, null, null, -1, -1);
     MongoFuture<WriteConcernResult> future = view.removeOne();
     adaptFuture(future, resultHandler);
@@ -253,7 +490,16 @@ public class MongoServiceImpl implements MongoService {
 
     MongoCollection<JsonObject> coll = getCollection(collection);
     MongoFuture<Void> future = coll.tools().drop();
-    handleFuture(future, resultHandler);
+    handleFuture(future, invalidate(collection, null, true, resultHandler));
+  }
+
+  @Override
+  public void getCacheMetrics(Handler<AsyncResult<JsonObject>> resultHandler) {
+    requireNonNull(resultHandler, "resultHandler cannot be null");
+
+    JsonObject metrics = new JsonObject();
+    documentCaches.forEach((collection, cache) -> metrics.put(collection, cache.metrics()));
+    dispatcher.completeOnContext(vertx.context(), metrics, null, resultHandler);
   }
 
   @Override
@@ -266,39 +512,62 @@ public class MongoServiceImpl implements MongoService {
     adaptFuture(future, resultHandler, Utils::toJson);
   }
 
+  private <T> Handler<AsyncResult<T>> invalidate(String collection, JsonObject query, Handler<AsyncResult<T>> resultHandler) {
+    return invalidate(collection, DocumentCache.idOf(query), true, resultHandler);
+  }
+
+  // Invalidate the cached document with this id, or all the cached documents of the collection when the id is not
+  // cacheable and all is true, both now and once the write completed
+  private <T> Handler<AsyncResult<T>> invalidate(String collection, Object id, boolean all, Handler<AsyncResult<T>> resultHandler) {
+    DocumentCache cache = documentCaches.get(collection);
+    Object key = DocumentCache.key(id);
+    if (cache == null || (key == null && !all)) {
+      return resultHandler;
+    }
+    cache.invalidate(key);
+    return ar -> {
+      cache.invalidate(key);
+      resultHandler.handle(ar);
+    };
+  }
+
   private void adaptFuture(MongoFuture<WriteConcernResult> future, Handler<AsyncResult<Void>> resultHandler) {
     adaptFuture(future, resultHandler, wr -> null);
   }
 
   private <T, U> void adaptFuture(MongoFuture<T> future, Handler<AsyncResult<U>> resultHandler, Function<T, U> converter) {
-    Context context = vertx.context();
-    future.register((wr, e) -> {
-      context.runOnContext(v -> {
-        if (e != null) {
-          resultHandler.handle(Future.completedFuture(e));
-        } else {
-          resultHandler.handle(Future.completedFuture(converter.apply(wr)));
-        }
-      });
-    });
+    dispatcher.register(future, vertx.context(), converter, resultHandler);
+  }
+
+  // Run the query, or join the identical query in flight when queries are coalesced
+  private <T> void coalesce(String operation, String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip,
+                            Supplier<MongoFuture<T>> execute, Function<T, T> copy, Handler<AsyncResult<T>> resultHandler) {
+    if (singleFlight != null) {
+      String key = SingleFlight.key(operation, collection, query, fields, sort, limit, skip);
+      singleFlight.execute(key, execute, copy, vertx.context(), resultHandler);
+    } else {
+      handleFuture(execute.get(), resultHandler);
+    }
+  }
+
+  private static List<JsonObject> copy(List<JsonObject> documents) {
+    List<JsonObject> copy = new ArrayList<>(documents.size());
+    for (JsonObject document : documents) {
+      copy.add(document.copy());
+    }
+    return copy;
   }
 
   private <T> void handleFuture(MongoFuture<T> future, Handler<AsyncResult<T>> resultHandler) {
-    Context context = vertx.context();
-    future.register((result, e) -> {
-      context.runOnContext(v -> {
-        if (e != null) {
-          resultHandler.handle(Future.completedFuture(e));
-        } else {
-          resultHandler.handle(Future.completedFuture(result));
-        }
-      });
-    });
+    dispatcher.register(future, vertx.context(), Function.identity(), resultHandler);
   }
 
   private MongoView<JsonObject> getView(String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip) {
-    MongoCollection<JsonObject> coll = getCollection(collection);
-    MongoView<JsonObject> view = coll.find(toDocument(query));
+    return getView(getCollection(collection), query, fields, sort, limit, skip);
+  }
+
+  private <T> MongoView<T> getView(MongoCollection<T> coll, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip) {
+    MongoView<T> view = coll.find(toDocument(query));
     if (limit != -1) {
       view.limit(limit);
     }
@@ -315,14 +584,22 @@ public class MongoServiceImpl implements MongoService {
   }
 
   private MongoCollection<JsonObject> getCollection(String name) {
-    return getCollection(name, new WriteOptions());
+    return getCollection(name, DEFAULT_WRITE_OPTIONS);
   }
 
   private MongoCollection<JsonObject> getCollection(String name, WriteOptions options) {
-    return db.getCollection(name, codec, collectionOptions(options, mongoClientSettings));
+    return collections.get(name, options);
+  }
+
+  private <T> MongoCollection<T> getCollection(String name, CollectibleCodec<T> codec) {
+    return db.getCollection(name, codec, collections.options(DEFAULT_WRITE_OPTIONS));
   }
 
   private static boolean isTrue(Boolean bool) {
     return bool != null && bool;
   }
+
+  private static boolean isFalse(Boolean bool) {
+    return bool != null && !bool;
+  }
 }
@@ -0,0 +1,195 @@
+package io.vertx.ext.mongo.impl;
+
+import com.mongodb.async.MongoFuture;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+
+import java.util.ArrayDeque;
+import java.util.function.Function;
+
+/**
+ * Hands the results of the driver to the contexts of the callers.<p>
+ * The results for a context are queued in its mailbox and a single task delivers all the results queued by the time it
+ * runs, so that results arriving together for the same context cost one task rather than one task each. A task
+ * delivers at most {@link #MAX_DELIVERIES} results before leaving room to the other tasks of the context.<p>
+ * A result available while the caller is on its context, either handed by the service call itself or completed as
+ * soon as the caller registers for it, is delivered right away without a task. It goes through the mailbox instead
+ * when results are queued for the context, so that results are delivered in the order they arrived, and when a result
+ * is already being delivered right away, so that a handler calling the service again does not nest deliveries.<p>
+ * The mailbox is kept in the context itself so that finding it does not contend with the other contexts. When two
+ * threads create the mailbox of a context at the same time, both mailboxes deliver their results.<p>
+ * A {@link Completion} is the callback of the driver, the entry of the mailbox and the result handed to the handler,
+ * so a result costs a single object. Completions are not pooled since handlers may keep the result.<p>
+ * Instances can be used concurrently.<p>
+ */
+class ResultDispatcher {
+
+  private static final int MAX_DELIVERIES = 256;
+  private static final String MAILBOX = ResultDispatcher.class.getName() + ".mailbox";
+
+  /**
+   * Hand the result of the future, converted, to the handler on the context.
+   */
+  <T, U> void register(MongoFuture<T> future, Context context, Function<T, U> converter, Handler<AsyncResult<U>> resultHandler) {
+    Completion<T, U> completion = new Completion<>(context, converter, resultHandler);
+    completion.registering = Thread.currentThread();
+    future.register((result, e) -> complete(completion, result, e));
+    completion.registering = null;
+  }
+
+  /**
+   * Hand a result to the handler on the context.
+   */
+  <T> void complete(Context context, T result, Throwable cause, Handler<AsyncResult<T>> resultHandler) {
+    Completion<T, T> completion = new Completion<>(context, Function.identity(), resultHandler);
+    complete(completion, result, cause);
+  }
+
+  /**
+   * Hand a result to the handler, the caller being on the context.
+   */
+  <T> void completeOnContext(Context context, T result, Throwable cause, Handler<AsyncResult<T>> resultHandler) {
+    Completion<T, T> completion = new Completion<>(context, Function.identity(), resultHandler);
+    completion.value = result;
+    completion.cause = cause;
+    mailbox(context).deliverNow(completion);
+  }
+
+  private <T, U> void complete(Completion<T, U> completion, T result, Throwable cause) {
+    completion.value = result;
+    completion.cause = cause;
+    if (completion.registering == Thread.currentThread()) {
+      // Completed while the caller registers, on its context
+      mailbox(completion.context).deliverNow(completion);
+    } else {
+      mailbox(completion.context).add(completion);
+    }
+  }
+
+  private static Mailbox mailbox(Context context) {
+    Mailbox mailbox = context.get(MAILBOX);
+    if (mailbox == null) {
+      mailbox = new Mailbox();
+      context.put(MAILBOX, mailbox);
+    }
+    return mailbox;
+  }
+
+  private static class Mailbox {
+
+    private final ArrayDeque<Completion<?, ?>> queue = new ArrayDeque<>();
+    private boolean scheduled;
+    // Whether a result is being delivered right away
+    private boolean delivering;
+
+    // Called on the context
+    void deliverNow(Completion<?, ?> completion) {
+      boolean now;
+      synchronized (this) {
+        // Nothing is queued when no task is scheduled
+        now = !delivering && !scheduled;
+        delivering |= now;
+      }
+      if (!now) {
+        add(completion);
+        return;
+      }
+      try {
+        completion.deliver();
+      } finally {
+        synchronized (this) {
+          delivering = false;
+        }
+      }
+    }
+
+    void add(Completion<?, ?> completion) {
+      synchronized (this) {
+        queue.add(completion);
+        if (scheduled) {
+          return;
+        }
+        scheduled = true;
+      }
+      Context context = completion.context;
+      context.runOnContext(v -> deliver(context));
+    }
+
+    private void deliver(Context context) {
+      for (int i = 0; i < MAX_DELIVERIES; i++) {
+        Completion<?, ?> completion;
+        synchronized (this) {
+          completion = queue.poll();
+          if (completion == null) {
+            scheduled = false;
+            return;
+          }
+        }
+        try {
+          completion.deliver();
+        } catch (RuntimeException | Error e) {
+          // Let the context report the failure, the remaining results are delivered by another task
+          resume(context);
+          throw e;
+        }
+      }
+      resume(context);
+    }
+
+    private void resume(Context context) {
+      synchronized (this) {
+        if (queue.isEmpty()) {
+          scheduled = false;
+          return;
+        }
+      }
+      context.runOnContext(v -> deliver(context));
+    }
+  }
+
+  private static class Completion<T, U> implements AsyncResult<U> {
+
+    final Context context;
+    final Function<T, U> converter;
+    final Handler<AsyncResult<U>> resultHandler;
+    // The thread registering for the result while it registers, only ever compared with the current thread
+    Thread registering;
+    T value;
+    U result;
+    Throwable cause;
+
+    Completion(Context context, Function<T, U> converter, Handler<AsyncResult<U>> resultHandler) {
+      this.context = context;
+      this.converter = converter;
+      this.resultHandler = resultHandler;
+    }
+
+    void deliver() {
+      if (cause == null) {
+        result = converter.apply(value);
+      }
+      resultHandler.handle(this);
+    }
+
+    @Override
+    public U result() {
+      return result;
+    }
+
+    @Override
+    public Throwable cause() {
+      return cause;
+    }
+
+    @Override
+    public boolean succeeded() {
+      return cause == null;
+    }
+
+    @Override
+    public boolean failed() {
+      return cause != null;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package io.vertx.ext.mongo.impl;
+
+import com.mongodb.async.MongoFuture;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent queries: while a query is in flight, the same query made again is not sent to the
+ * database, it gets the result of the query in flight instead.<p>
+ * Queries are identical when their {@link #key key} is the same, that is the same operation with the same collection,
+ * query, fields, sort, limit and skip. Each caller gets the result on its own context through the
+ * {@link ResultDispatcher}, the first one gets the result of the driver and the other ones get a copy of it, so that
+ * they cannot see each other changes. All the copies are made before any caller gets the result, since the first
+ * caller may change it on its own event loop.<p>
+ * A query made after the query in flight was sent may not see a write completed in between, so coalescing is only
+ * enabled with the {@code coalesce_queries} config.<p>
+ * Instances can be used concurrently.<p>
+ */
+class SingleFlight {
+
+  private final ConcurrentMap<String, Call<?>> calls = new ConcurrentHashMap<>();
+  private final ResultDispatcher dispatcher;
+
+  SingleFlight(ResultDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
+  static String key(String operation, String collection, JsonObject query, JsonObject fields, JsonObject sort, int limit, int skip) {
+    StringBuilder sb = new StringBuilder(operation).append('\u0000').append(collection).append('\u0000').append(query.encode());
+    sb.append('\u0000');
+    if (fields != null) {
+      sb.append(fields.encode());
+    }
+    sb.append('\u0000');
+    if (sort != null) {
+      sb.append(sort.encode());
+    }
+    return sb.append('\u0000').append(limit).append('\u0000').append(skip).toString();
+  }
+
+  /**
+   * Run the operation unless an identical one is in flight, then hand its result to the handler on the context.
+   *
+   * @param copy copies the result for the callers coalesced with the first one
+   */
+  @SuppressWarnings("unchecked")
+  <T> void execute(String key, Supplier<MongoFuture<T>> operation, Function<T, T> copy, Context context, Handler<AsyncResult<T>> resultHandler) {
+    Call<T> call = new Call<>(context, resultHandler);
+    Call<T> existing;
+    while ((existing = (Call<T>) calls.putIfAbsent(key, call)) != null) {
+      if (existing.join(context, resultHandler)) {
+        return;
+      }
+      // The call completed meanwhile, it is removed before completing so the next attempt can take its place
+    }
+    MongoFuture<T> future;
+    try {
+      future = operation.get();
+    } catch (RuntimeException e) {
+      calls.remove(key, call);
+      call.complete(dispatcher, null, e, copy);
+      return;
+    }
+    future.register((result, e) -> {
+      calls.remove(key, call);
+      call.complete(dispatcher, result, e, copy);
+    });
+  }
+
+  private static class Call<T> {
+
+    private final List<Context> contexts = new ArrayList<>(1);
+    private final List<Handler<AsyncResult<T>>> handlers = new ArrayList<>(1);
+    private boolean completed;
+
+    Call(Context context, Handler<AsyncResult<T>> resultHandler) {
+      contexts.add(context);
+      handlers.add(resultHandler);
+    }
+
+    synchronized boolean join(Context context, Handler<AsyncResult<T>> resultHandler) {
+      if (completed) {
+        return false;
+      }
+      contexts.add(context);
+      handlers.add(resultHandler);
+      return true;
+    }
+
+    void complete(ResultDispatcher dispatcher, T result, Throwable e, Function<T, T> copy) {
+      synchronized (this) {
+        completed = true;
+      }
+      List<T> values = new ArrayList<>(handlers.size());
+      values.add(result);
+      for (int i = 1; i < handlers.size(); i++) {
+        values.add(e == null ? copy.apply(result) : null);
+      }
+      for (int i = 0; i < handlers.size(); i++) {
+        dispatcher.complete(contexts.get(i), values.get(i), e, handlers.get(i));
+      }
+    }
+  }
+}
@@ -20,6 +20,7 @@ import org.bson.Document;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author <a href="mailto:nscavell@redhat.com">Nick Scavelli</a>
@@ -35,6 +36,7 @@ class Utils {
   }
 
   //FIXME: All the manual conversion from JsonObject <-> Document should be removed when https://jira.mongodb.org/browse/JAVA-1325 is finished.
+  // The document is a copy, the driver encodes it later on its own thread while the caller may change the JSON object
   public static Document toDocument(JsonObject json) {
     return toDocument(json, false);
   }
@@ -99,12 +101,16 @@ class Utils {
         doc.put(k, getDocumentValue(v));
       });
       return doc;
+    } else if (value instanceof Map) {
+      return getDocumentValue(new JsonObject((Map<String, Object>) value));
     } else if (value instanceof JsonArray) {
       List<Object> list = new ArrayList<>();
       for (Object o : (JsonArray) value) {
         list.add(getDocumentValue(o));
       }
       return list;
+    } else if (value instanceof List) {
+      return getDocumentValue(new JsonArray((List) value));
     } else {
       return value;
     }
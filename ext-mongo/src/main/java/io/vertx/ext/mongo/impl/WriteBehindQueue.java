@@ -0,0 +1,249 @@
+package io.vertx.ext.mongo.impl;
+
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
+import com.mongodb.async.client.MongoDatabase;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.impl.codec.json.JsonObjectCodec;
+import org.bson.Document;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.vertx.ext.mongo.impl.Utils.*;
+
+/**
+ * The inserts of a collection, queued and sent in batches rather than one by one.<p>
+ * A batch is sent as an unordered bulk write once {@code batch_size} documents are queued or {@code flush_interval} ms
+ * after the first document was queued, the bulk write splits it in several commands when the documents exceed the
+ * size limit of a command. A single batch is in flight at a time, the documents queued meanwhile are sent
+ * as soon as it completes. Each insert is completed on its own context from the outcome of its document in the batch,
+ * a failed document does not fail the other ones. The inserts of a batch made from the same context are completed by a
+ * single task of the {@link ResultDispatcher}.<p>
+ * The queue is full once it holds {@code max_queue_size} documents, inserts are still queued but callers should wait
+ * for the drain handlers, called once the queue is back to half of this size.<p>
+ * Instances can be used concurrently.<p>
+ */
+class WriteBehindQueue {
+
+  private static final int DEFAULT_BATCH_SIZE = BulkWrite.MAX_BATCH_SIZE;
+  private static final long DEFAULT_FLUSH_INTERVAL = 10;
+  private static final int DEFAULT_MAX_QUEUE_SIZE = 10000;
+
+  private final Vertx vertx;
+  private final MongoDatabase db;
+  private final JsonObjectCodec codec;
+  private final ResultDispatcher dispatcher;
+  private final String collection;
+  private final WriteConcern writeConcern;
+  private final int batchSize;
+  private final long flushInterval;
+  private final int maxQueueSize;
+  private final ArrayDeque<Insert> queue = new ArrayDeque<>();
+  private final List<Context> drainContexts = new ArrayList<>();
+  private final List<Handler<Void>> drainHandlers = new ArrayList<>();
+  private boolean flushing;
+  private long timerID = -1;
+
+  WriteBehindQueue(Vertx vertx, MongoDatabase db, JsonObjectCodec codec, ResultDispatcher dispatcher, String collection,
+                   WriteConcern writeConcern, JsonObject config) {
+    this.vertx = vertx;
+    this.db = db;
+    this.codec = codec;
+    this.dispatcher = dispatcher;
+    this.collection = collection;
+    this.writeConcern = writeConcern;
+    this.batchSize = config.getInteger("batch_size", DEFAULT_BATCH_SIZE);
+    this.flushInterval = config.getLong("flush_interval", DEFAULT_FLUSH_INTERVAL);
+    this.maxQueueSize = config.getInteger("max_queue_size", DEFAULT_MAX_QUEUE_SIZE);
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batch_size must be > 0");
+    }
+    if (flushInterval < 1) {
+      throw new IllegalArgumentException("flush_interval must be > 0");
+    }
+    if (maxQueueSize < 1) {
+      throw new IllegalArgumentException("max_queue_size must be > 0");
+    }
+  }
+
+  void insert(JsonObject document, Context context, Handler<AsyncResult<String>> resultHandler) {
+    boolean insert = !codec.documentHasId(document);
+    codec.generateIdIfAbsentFromDocument(document);
+    String id = insert ? idAsString(codec.getDocumentId(document)) : null;
+    // Converted now since the caller may change the document before it is sent
+    Document converted = toDocument(document);
+    List<Insert> batch = null;
+    synchronized (this) {
+      queue.add(new Insert(converted, id, context, resultHandler));
+      if (!flushing) {
+        if (queue.size() >= batchSize) {
+          batch = takeBatch();
+        } else if (timerID == -1) {
+          timerID = vertx.setTimer(flushInterval, tid -> timeout());
+        }
+      }
+    }
+    if (batch != null) {
+      send(batch);
+    }
+  }
+
+  synchronized boolean isFull() {
+    return queue.size() >= maxQueueSize;
+  }
+
+  void drainHandler(Context context, Handler<Void> handler) {
+    synchronized (this) {
+      if (queue.size() > maxQueueSize / 2) {
+        drainContexts.add(context);
+        drainHandlers.add(handler);
+        return;
+      }
+    }
+    context.runOnContext(handler);
+  }
+
+  /**
+   * Fail the queued inserts, the service is stopped.
+   */
+  void close() {
+    List<Insert> inserts;
+    synchronized (this) {
+      if (timerID != -1) {
+        vertx.cancelTimer(timerID);
+        timerID = -1;
+      }
+      inserts = new ArrayList<>(queue);
+      queue.clear();
+    }
+    IllegalStateException e = new IllegalStateException("The service is stopped");
+    for (Insert insert : inserts) {
+      dispatcher.complete(insert.context, null, e, insert.resultHandler);
+    }
+  }
+
+  private void timeout() {
+    List<Insert> batch = null;
+    synchronized (this) {
+      timerID = -1;
+      if (!flushing && !queue.isEmpty()) {
+        batch = takeBatch();
+      }
+    }
+    if (batch != null) {
+      send(batch);
+    }
+  }
+
+  // Called with the lock held, the batch is sent once the lock is released
+  private List<Insert> takeBatch() {
+    if (timerID != -1) {
+      vertx.cancelTimer(timerID);
+      timerID = -1;
+    }
+    int size = Math.min(batchSize, queue.size());
+    List<Insert> batch = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      batch.add(queue.poll());
+    }
+    flushing = true;
+    return batch;
+  }
+
+  private void send(List<Insert> batch) {
+    List<Document> documents = new ArrayList<>(batch.size());
+    for (Insert insert : batch) {
+      documents.add(insert.document);
+    }
+    BulkWrite bulk;
+    try {
+      bulk = new BulkWrite(collection, documents, writeConcern);
+    } catch (RuntimeException e) {
+      flushed(batch, Future.completedFuture(e));
+      return;
+    }
+    bulk.execute(db, ar -> flushed(batch, ar));
+  }
+
+  private void flushed(List<Insert> batch, AsyncResult<JsonObject> ar) {
+    List<Context> contexts = null;
+    List<Handler<Void>> handlers = null;
+    List<Insert> next = null;
+    synchronized (this) {
+      flushing = false;
+      if (!queue.isEmpty()) {
+        next = takeBatch();
+      }
+      if (!drainHandlers.isEmpty() && queue.size() <= maxQueueSize / 2) {
+        contexts = new ArrayList<>(drainContexts);
+        handlers = new ArrayList<>(drainHandlers);
+        drainContexts.clear();
+        drainHandlers.clear();
+      }
+    }
+    complete(batch, ar);
+    if (handlers != null) {
+      for (int i = 0; i < handlers.size(); i++) {
+        contexts.get(i).runOnContext(handlers.get(i));
+      }
+    }
+    if (next != null) {
+      send(next);
+    }
+  }
+
+  private void complete(List<Insert> batch, AsyncResult<JsonObject> ar) {
+    Throwable[] failures = new Throwable[batch.size()];
+    if (ar.failed()) {
+      for (int i = 0; i < failures.length; i++) {
+        failures[i] = ar.cause();
+      }
+    } else {
+      JsonObject result = ar.result();
+      JsonArray writeConcernErrors = result.getJsonArray("writeConcernErrors");
+      if (writeConcernErrors.size() > 0) {
+        Throwable failure = exception(writeConcernErrors.getJsonObject(0));
+        for (int i = 0; i < failures.length; i++) {
+          failures[i] = failure;
+        }
+      }
+      JsonArray writeErrors = result.getJsonArray("writeErrors");
+      for (int i = 0; i < writeErrors.size(); i++) {
+        JsonObject error = writeErrors.getJsonObject(i);
+        failures[error.getInteger("index")] = exception(error);
+      }
+    }
+    for (int i = 0; i < failures.length; i++) {
+      Insert insert = batch.get(i);
+      dispatcher.complete(insert.context, failures[i] == null ? insert.id : null, failures[i], insert.resultHandler);
+    }
+  }
+
+  private static MongoException exception(JsonObject error) {
+    return new MongoException(error.getInteger("code", 0), error.getString("errmsg"));
+  }
+
+  private static class Insert {
+
+    final Document document;
+    // The generated id, null when the document had one
+    final String id;
+    final Context context;
+    final Handler<AsyncResult<String>> resultHandler;
+
+    Insert(Document document, String id, Context context, Handler<AsyncResult<String>> resultHandler) {
+      this.document = document;
+      this.id = id;
+      this.context = context;
+      this.resultHandler = resultHandler;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package io.vertx.ext.mongo.impl.codec.buffer;
+
+import io.vertx.core.buffer.Buffer;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * A codec decoding documents straight from the BSON reader into a {@link Buffer}, without building any object. These
+ * codecs are only used to read documents, they cannot encode them.
+ */
+public abstract class AbstractBufferCodec implements CollectibleCodec<Buffer> {
+
+  @Override
+  public void encode(BsonWriter writer, Buffer value, EncoderContext encoderContext) {
+    throw new UnsupportedOperationException("Buffers can only be decoded");
+  }
+
+  @Override
+  public Class<Buffer> getEncoderClass() {
+    return Buffer.class;
+  }
+
+  @Override
+  public void generateIdIfAbsentFromDocument(Buffer document) {
+  }
+
+  @Override
+  public boolean documentHasId(Buffer document) {
+    return true;
+  }
+
+  @Override
+  public BsonValue getDocumentId(Buffer document) {
+    throw new UnsupportedOperationException("Buffers can only be decoded");
+  }
+}
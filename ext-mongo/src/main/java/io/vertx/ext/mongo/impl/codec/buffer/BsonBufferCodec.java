@@ -0,0 +1,22 @@
+package io.vertx.ext.mongo.impl.codec.buffer;
+
+import io.vertx.core.buffer.Buffer;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonReader;
+import org.bson.codecs.DecoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+/**
+ * Decodes each document into a buffer holding its BSON encoding, so that it can be passed on without being decoded.
+ * The reader is piped into a binary writer, which encodes every BSON type as the server does, including the lengths
+ * nested in the values.<p>
+ */
+public class BsonBufferCodec extends AbstractBufferCodec {
+
+  @Override
+  public Buffer decode(BsonReader reader, DecoderContext decoderContext) {
+    BasicOutputBuffer output = new BasicOutputBuffer();
+    new BsonBinaryWriter(output).pipe(reader);
+    return Buffer.buffer(output.toByteArray());
+  }
+}
@@ -0,0 +1,144 @@
+package io.vertx.ext.mongo.impl.codec.buffer;
+
+import io.vertx.core.buffer.Buffer;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.codecs.DecoderContext;
+
+/**
+ * Transcodes the documents of a query into a single JSON array, as the reader goes through them, rather than
+ * decoding them into JSON objects and encoding these. Each document is written in a reused builder and appended to
+ * the buffer, all the documents decode to that same buffer which holds the whole array once {@link #end()} is called.
+ * <p>
+ * The JSON is the one of the documents decoded by {@link io.vertx.ext.mongo.impl.codec.json.JsonObjectCodec}, object
+ * ids are written as their hex string and dates as their time in ms, other extended types are not supported.<p>
+ * Instances are not thread-safe, an instance must be used for a single query.<p>
+ */
+public class JsonBufferCodec extends AbstractBufferCodec {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Buffer buffer = Buffer.buffer();
+  private final StringBuilder sb = new StringBuilder();
+  private int count;
+
+  @Override
+  public Buffer decode(BsonReader reader, DecoderContext decoderContext) {
+    sb.setLength(0);
+    sb.append(count++ == 0 ? '[' : ',');
+    reader.readStartDocument();
+    writeElements(reader, false);
+    reader.readEndDocument();
+    buffer.appendString(sb.toString());
+    return buffer;
+  }
+
+  /**
+   * Close the array once all the documents have been decoded.
+   *
+   * @return the buffer holding the array
+   */
+  public Buffer end() {
+    return buffer.appendString(count == 0 ? "[]" : "]");
+  }
+
+  private void writeElements(BsonReader reader, boolean array) {
+    sb.append(array ? '[' : '{');
+    int length = sb.length();
+    BsonType type;
+    while ((type = reader.readBsonType()) != BsonType.END_OF_DOCUMENT) {
+      element(reader, type, array ? null : reader.readName());
+    }
+    if (sb.length() > length) {
+      // Remove the trailing comma
+      sb.setLength(sb.length() - 1);
+    }
+    sb.append(array ? ']' : '}');
+  }
+
+  /**
+   * Write an element, {@code name} is {@code null} for the elements of an array.
+   */
+  private void element(BsonReader reader, BsonType type, String name) {
+    if (name != null) {
+      writeString(name);
+      sb.append(':');
+    }
+    switch (type) {
+      case DOUBLE:
+        double d = reader.readDouble();
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+          writeString(Double.toString(d));
+        } else {
+          sb.append(d);
+        }
+        break;
+      case STRING:
+        writeString(reader.readString());
+        break;
+      case DOCUMENT:
+        reader.readStartDocument();
+        writeElements(reader, false);
+        reader.readEndDocument();
+        break;
+      case ARRAY:
+        reader.readStartArray();
+        writeElements(reader, true);
+        reader.readEndArray();
+        break;
+      case OBJECT_ID:
+        writeString(reader.readObjectId().toHexString());
+        break;
+      case BOOLEAN:
+        sb.append(reader.readBoolean());
+        break;
+      case DATE_TIME:
+        sb.append(reader.readDateTime());
+        break;
+      case NULL:
+        reader.readNull();
+        sb.append("null");
+        break;
+      case INT32:
+        sb.append(reader.readInt32());
+        break;
+      case INT64:
+        sb.append(reader.readInt64());
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported bson type " + type);
+    }
+    sb.append(',');
+  }
+
+  private void writeString(String s) {
+    sb.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+}
@@ -15,6 +15,8 @@
  */
 
 var utils = require('vertx-js/util/utils');
+var Buffer = require('vertx-js/buffer');
+var ReadStream = require('vertx-js/read_stream');
 
 var io = Packages.io;
 var JsonObject = io.vertx.core.json.JsonObject;
@@ -22,6 +24,7 @@ var JMongoService = io.vertx.ext.mongo.MongoService;
 var InsertOptions = io.vertx.ext.mongo.InsertOptions;
 var WriteOptions = io.vertx.ext.mongo.WriteOptions;
 var UpdateOptions = io.vertx.ext.mongo.UpdateOptions;
+var BulkWriteOptions = io.vertx.ext.mongo.BulkWriteOptions;
 
 /**
 
@@ -58,6 +61,46 @@ var MongoService = function(j_val) {
     } else utils.invalidArgs();
   };
 
+  this.writeQueueFull = function(collection) {
+    var __args = arguments;
+    if (__args.length === 1 && typeof __args[0] === 'string') {
+      return j_mongoService.writeQueueFull(collection);
+    } else utils.invalidArgs();
+  };
+
+  this.drainHandler = function(collection, handler) {
+    var __args = arguments;
+    if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
+      j_mongoService.drainHandler(collection, handler);
+    } else utils.invalidArgs();
+  };
+
+  this.insertMany = function(collection, documents, options, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 4 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && __args[1] instanceof Array && typeof __args[2] === 'object' && typeof __args[3] === 'function') {
+      j_mongoService.insertMany(collection, documents.map(function(document) { return utils.convJSObjectToJsonObject(document); }), options != null ? new InsertOptions(new JsonObject(JSON.stringify(options))) : null, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convJsonToJS(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+    } else utils.invalidArgs();
+  };
+
+  this.bulkWrite = function(collection, operations, options, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 4 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && __args[1] instanceof Array && typeof __args[2] === 'object' && typeof __args[3] === 'function') {
+      j_mongoService.bulkWrite(collection, operations.map(function(operation) { return utils.convJSObjectToJsonObject(operation); }), options != null ? new BulkWriteOptions(new JsonObject(JSON.stringify(options))) : null, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convJsonToJS(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+    } else utils.invalidArgs();
+  };
+
   this.update = function(collection, query, update, options, resultHandler) {
     var __args = arguments;
     if (__args.length === 5 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && typeof __args[2] === 'object' && typeof __args[3] === 'object' && typeof __args[4] === 'function') {
@@ -97,6 +140,78 @@ var MongoService = function(j_val) {
     } else utils.invalidArgs();
   };
 
+  this.findRaw = function(collection, query, fields, sort, limit, skip, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 7 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && typeof __args[2] === 'object' && typeof __args[3] === 'object' && typeof __args[4] ==='number' && typeof __args[5] ==='number' && typeof __args[6] === 'function') {
+      j_mongoService.findRaw(collection, utils.convJSObjectToJsonObject(query), utils.convJSObjectToJsonObject(fields), utils.convJSObjectToJsonObject(sort), limit, skip, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convListSetVertxGen(ar.result(), Buffer), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+    } else utils.invalidArgs();
+  };
+
+  this.findJson = function(collection, query, fields, sort, limit, skip, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 7 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && typeof __args[2] === 'object' && typeof __args[3] === 'object' && typeof __args[4] ==='number' && typeof __args[5] ==='number' && typeof __args[6] === 'function') {
+      j_mongoService.findJson(collection, utils.convJSObjectToJsonObject(query), utils.convJSObjectToJsonObject(fields), utils.convJSObjectToJsonObject(sort), limit, skip, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(new Buffer(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+    } else utils.invalidArgs();
+  };
+
+  this.findStream = function(collection, query, fields, sort, limit, skip, batchSize) {
+    var __args = arguments;
+    if (__args.length === 7 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && typeof __args[2] === 'object' && typeof __args[3] === 'object' && typeof __args[4] ==='number' && typeof __args[5] ==='number' && typeof __args[6] ==='number') {
+      return new ReadStream(j_mongoService.findStream(collection, utils.convJSObjectToJsonObject(query), utils.convJSObjectToJsonObject(fields), utils.convJSObjectToJsonObject(sort), limit, skip, batchSize));
+    } else utils.invalidArgs();
+  };
+
+  this.findBatch = function(collection, query, fields, sort, limit, skip, batchSize, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 8 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && typeof __args[2] === 'object' && typeof __args[3] === 'object' && typeof __args[4] ==='number' && typeof __args[5] ==='number' && typeof __args[6] ==='number' && typeof __args[7] === 'function') {
+      j_mongoService.findBatch(collection, utils.convJSObjectToJsonObject(query), utils.convJSObjectToJsonObject(fields), utils.convJSObjectToJsonObject(sort), limit, skip, batchSize, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convJsonToJS(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+    } else utils.invalidArgs();
+  };
+
+  this.findNextBatch = function(cursor, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
+      j_mongoService.findNextBatch(cursor, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convJsonToJS(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+    } else utils.invalidArgs();
+  };
+
+  this.closeCursor = function(cursor, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
+      j_mongoService.closeCursor(cursor, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(null, null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+    } else utils.invalidArgs();
+  };
+
   this.findOne = function(collection, query, fields, resultHandler) {
     var __args = arguments;
     if (__args.length === 4 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && typeof __args[2] === 'object' && typeof __args[3] === 'function') {
@@ -188,6 +303,19 @@ var MongoService = function(j_val) {
     } else utils.invalidArgs();
   };
 
+  this.getCacheMetrics = function(resultHandler) {
+    var __args = arguments;
+    if (__args.length === 1 && typeof __args[0] === 'function') {
+      j_mongoService.getCacheMetrics(function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convJsonToJS(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+    } else utils.invalidArgs();
+  };
+
   this.runCommand = function(collection, command, resultHandler) {
     var __args = arguments;
     if (__args.length === 3 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && typeof __args[2] === 'function') {
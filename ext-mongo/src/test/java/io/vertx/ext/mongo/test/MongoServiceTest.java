@@ -1,9 +1,18 @@
 package io.vertx.ext.mongo.test;
 
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.InsertOptions;
 import io.vertx.ext.mongo.MongoService;
+import io.vertx.ext.mongo.UpdateOptions;
+import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -28,5 +37,230 @@ public class MongoServiceTest extends MongoServiceTestBase {
     super.tearDown();
   }
 
+  @Test
+  public void testFindStream() throws Exception {
+    int num = 10;
+    String collection = randomCollection();
+    insertDocs(collection, num, onSuccess(res -> {
+      ReadStream<JsonObject> stream = mongoService.findStream(collection, new JsonObject(), null, null, 7, -1, 3);
+      List<JsonObject> results = new ArrayList<>();
+      stream.endHandler(v -> {
+        assertEquals(7, results.size());
+        testComplete();
+      });
+      stream.handler(doc -> {
+        results.add(doc);
+        if (results.size() == 3) {
+          // Nothing is fetched while paused
+          stream.pause();
+          vertx.setTimer(100, id -> {
+            assertEquals(3, results.size());
+            stream.resume();
+          });
+        }
+      });
+    }));
+    await();
+  }
+
+  @Test
+  public void testFindStreamObjectIds() throws Exception {
+    String collection = randomCollection();
+    // The server generates an ObjectId for the documents without _id
+    JsonArray documents = new JsonArray();
+    for (int i = 0; i < 7; i++) {
+      documents.add(new JsonObject().put("num", i));
+    }
+    documents.add(new JsonObject().put("_id", 1).put("num", 7)).add(new JsonObject().put("_id", "a").put("num", 8));
+    JsonObject insert = new JsonObject().put("insert", collection).put("documents", documents);
+    mongoService.runCommand(collection, insert, onSuccess(reply -> {
+      ReadStream<JsonObject> stream = mongoService.findStream(collection, new JsonObject(), null, null, -1, -1, 2);
+      List<JsonObject> results = new ArrayList<>();
+      stream.handler(results::add);
+      stream.endHandler(v -> {
+        assertEquals(9, results.size());
+        testComplete();
+      });
+    }));
+    await();
+  }
+
+  @Test
+  public void testFindRaw() throws Exception {
+    int num = 10;
+    String collection = randomCollection();
+    insertDocs(collection, num, onSuccess(res -> {
+      mongoService.findRaw(collection, new JsonObject(), null, null, -1, -1, onSuccess(buffers -> {
+        assertEquals(num, buffers.size());
+        for (Buffer buffer : buffers) {
+          // Each buffer is a whole BSON document, starting with its little endian length
+          assertEquals(buffer.length(), Integer.reverseBytes(buffer.getInt(0)));
+          assertEquals(0, buffer.getByte(buffer.length() - 1));
+        }
+        testComplete();
+      }));
+    }));
+    await();
+  }
+
+  @Test
+  public void testFindJson() throws Exception {
+    int num = 10;
+    String collection = randomCollection();
+    insertDocs(collection, num, onSuccess(res -> {
+      JsonObject sort = new JsonObject().put("foo", 1);
+      mongoService.find(collection, new JsonObject(), null, sort, -1, -1, onSuccess(docs -> {
+        mongoService.findJson(collection, new JsonObject(), null, sort, -1, -1, onSuccess(buffer -> {
+          JsonArray json = new JsonArray(buffer.toString());
+          assertEquals(docs.size(), json.size());
+          for (int i = 0; i < docs.size(); i++) {
+            assertEquals(docs.get(i).encode(), json.getJsonObject(i).encode());
+          }
+          mongoService.findJson(collection, new JsonObject().put("num", -1), null, null, -1, -1, onSuccess(empty -> {
+            assertEquals("[]", empty.toString());
+            testComplete();
+          }));
+        }));
+      }));
+    }));
+    await();
+  }
+
+  @Test
+  public void testCollectionCacheEviction() throws Exception {
+    int num = 4;
+    List<String> collections = new ArrayList<>();
+    for (int i = 0; i < num; i++) {
+      collections.add(randomCollection());
+    }
+    // Each collection is used with two write concerns, so the handles are evicted while the operations go on
+    MongoService cached = MongoService.create(vertx, getConfig().put("collection_cache_size", 2));
+    cached.start();
+    AtomicInteger counts = new AtomicInteger();
+    for (String collection : collections) {
+      cached.insert(collection, new JsonObject().put("foo", "bar"), new InsertOptions(), onSuccess(id -> {
+        InsertOptions acknowledged = new InsertOptions().setWriteConcern("ACKNOWLEDGED");
+        cached.insert(collection, new JsonObject().put("foo", "baz"), acknowledged, onSuccess(id2 -> {
+          cached.count(collection, new JsonObject(), onSuccess(count -> {
+            assertEquals(2, (long) count);
+            if (counts.incrementAndGet() == num) {
+              cached.stop();
+              testComplete();
+            }
+          }));
+        }));
+      }));
+    }
+    await();
+  }
+
+  @Test
+  public void testDocumentCache() throws Exception {
+    String collection = randomCollection();
+    JsonObject config = getConfig().put("document_cache", new JsonObject().put(collection, new JsonObject().put("max_size", 10)));
+    MongoService cached = MongoService.create(vertx, config);
+    cached.start();
+    JsonObject query = new JsonObject().put("_id", "doc");
+    cached.insert(collection, new JsonObject().put("_id", "doc").put("foo", "bar"), new InsertOptions(), onSuccess(id -> {
+      cached.findOne(collection, query, null, onSuccess(doc -> {
+        assertEquals("bar", doc.getString("foo"));
+        // The cached document is a copy
+        doc.put("foo", "quux");
+        cached.findOne(collection, query, null, onSuccess(hit -> {
+          assertEquals("bar", hit.getString("foo"));
+          JsonObject update = new JsonObject().put("$set", new JsonObject().put("foo", "baz"));
+          cached.update(collection, query, update, new UpdateOptions(), onSuccess(v -> {
+            cached.find(collection, query, null, null, -1, -1, onSuccess(docs -> {
+              assertEquals(1, docs.size());
+              assertEquals("baz", docs.get(0).getString("foo"));
+              cached.getCacheMetrics(onSuccess(metrics -> {
+                JsonObject cacheMetrics = metrics.getJsonObject(collection);
+                assertEquals(1, (long) cacheMetrics.getLong("hits"));
+                assertEquals(2, (long) cacheMetrics.getLong("misses"));
+                assertEquals(1, (int) cacheMetrics.getInteger("size"));
+                cached.stop();
+                testComplete();
+              }));
+            }));
+          }));
+        }));
+      }));
+    }));
+    await();
+  }
+
+  @Test
+  public void testCoalesceQueries() throws Exception {
+    int num = 10;
+    String collection = randomCollection();
+    MongoService coalescing = MongoService.create(vertx, getConfig().put("coalesce_queries", true));
+    coalescing.start();
+    insertDocs(collection, num, onSuccess(res -> {
+      JsonObject query = new JsonObject().put("foo", "bar1");
+      List<JsonObject> docs = new ArrayList<>();
+      AtomicInteger counts = new AtomicInteger();
+      for (int i = 0; i < num; i++) {
+        coalescing.findOne(collection, query, null, onSuccess(doc -> {
+          assertEquals("bar1", doc.getString("foo"));
+          // Each caller gets its own document
+          for (JsonObject other : docs) {
+            assertNotSame(other, doc);
+          }
+          docs.add(doc);
+          coalescing.count(collection, new JsonObject(), onSuccess(count -> {
+            assertEquals(num, (long) count);
+            if (counts.incrementAndGet() == num) {
+              coalescing.stop();
+              testComplete();
+            }
+          }));
+        }));
+      }
+    }));
+    await();
+  }
+
+  @Test
+  public void testWriteBehind() throws Exception {
+    int num = 25;
+    String collection = randomCollection();
+    JsonObject writeBehind = new JsonObject().put("batch_size", 10).put("max_queue_size", 10);
+    MongoService batching = MongoService.create(vertx, getConfig().put("write_behind", new JsonObject().put(collection, writeBehind)));
+    batching.start();
+    AtomicInteger inserted = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    Runnable done = () -> {
+      if (inserted.get() + failed.get() == num + 2) {
+        assertEquals(1, failed.get());
+        batching.count(collection, new JsonObject(), onSuccess(count -> {
+          assertEquals(num + 1, (long) count);
+          batching.stop();
+          testComplete();
+        }));
+      }
+    };
+    for (int i = 0; i < num; i++) {
+      batching.insert(collection, new JsonObject().put("num", i), new InsertOptions(), onSuccess(id -> {
+        assertNotNull(id);
+        inserted.incrementAndGet();
+        done.run();
+      }));
+    }
+    assertTrue(batching.writeQueueFull(collection));
+    batching.drainHandler(collection, v -> {
+      assertFalse(batching.writeQueueFull(collection));
+      // A duplicate id only fails its own insert
+      batching.insert(collection, new JsonObject().put("_id", "dup"), new InsertOptions(), onSuccess(id -> {
+        assertNull(id);
+        inserted.incrementAndGet();
+        batching.insert(collection, new JsonObject().put("_id", "dup"), new InsertOptions(), ar -> {
+          assertTrue(ar.failed());
+          failed.incrementAndGet();
+          done.run();
+        });
+      }));
+    });
+    await();
+  }
 
 }
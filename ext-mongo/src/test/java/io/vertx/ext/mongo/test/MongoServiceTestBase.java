@@ -28,6 +28,7 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkWriteOptions;
 import io.vertx.ext.mongo.InsertOptions;
 import io.vertx.ext.mongo.MongoService;
 import io.vertx.ext.mongo.UpdateOptions;
@@ -39,6 +40,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -93,7 +95,7 @@ public abstract class MongoServiceTestBase extends VertxTestBase {
 
   protected MongoService mongoService;
 
-  private String randomCollection() {
+  protected String randomCollection() {
     return "ext-mongo" + TestUtils.randomAlphaString(20);
   }
 
@@ -260,6 +262,58 @@ public abstract class MongoServiceTestBase extends VertxTestBase {
     await();
   }
 
+  @Test
+  public void testInsertMany() throws Exception {
+    String collection = randomCollection();
+    List<JsonObject> docs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      docs.add(createDoc(i));
+    }
+    docs.get(5).put("_id", "dup");
+    docs.get(6).put("_id", "dup");
+    mongoService.insertMany(collection, docs, new InsertOptions().setOrdered(false), onSuccess(result -> {
+      assertEquals(9, result.getInteger("nInserted").intValue());
+      assertEquals(9, result.getJsonArray("insertedIds").size());
+      assertEquals(1, result.getJsonArray("writeErrors").size());
+      assertEquals(6, result.getJsonArray("writeErrors").getJsonObject(0).getInteger("index").intValue());
+      mongoService.count(collection, new JsonObject(), onSuccess(count -> {
+        assertEquals(9, count.intValue());
+        testComplete();
+      }));
+    }));
+    await();
+  }
+
+  @Test
+  public void testBulkWrite() throws Exception {
+    String collection = randomCollection();
+    List<JsonObject> operations = Arrays.asList(
+      new JsonObject().put("insertOne", new JsonObject().put("document", createDoc(1).put("_id", "a"))),
+      new JsonObject().put("insertOne", new JsonObject().put("document", createDoc(2).put("_id", "b"))),
+      new JsonObject().put("updateOne", new JsonObject().put("filter", new JsonObject().put("_id", "a"))
+        .put("update", new JsonObject().put("$set", new JsonObject().put("num", 456)))),
+      new JsonObject().put("replaceOne", new JsonObject().put("filter", new JsonObject().put("_id", "c"))
+        .put("replacement", createDoc(3)).put("upsert", true)),
+      new JsonObject().put("deleteOne", new JsonObject().put("filter", new JsonObject().put("_id", "b"))),
+      // Fails, so the next operation is not applied
+      new JsonObject().put("insertOne", new JsonObject().put("document", createDoc(4).put("_id", "a"))),
+      new JsonObject().put("insertOne", new JsonObject().put("document", createDoc(5)))
+    );
+    mongoService.bulkWrite(collection, operations, new BulkWriteOptions(), onSuccess(result -> {
+      assertEquals(2, result.getInteger("nInserted").intValue());
+      assertEquals(1, result.getInteger("nModified").intValue());
+      assertEquals(1, result.getInteger("nUpserted").intValue());
+      assertEquals(3, result.getJsonArray("upserted").getJsonObject(0).getInteger("index").intValue());
+      assertEquals(1, result.getInteger("nRemoved").intValue());
+      assertEquals(5, result.getJsonArray("writeErrors").getJsonObject(0).getInteger("index").intValue());
+      mongoService.find(collection, new JsonObject(), null, null, -1, -1, onSuccess(list -> {
+        assertEquals(2, list.size());
+        testComplete();
+      }));
+    }));
+    await();
+  }
+
   @Test
   public void testSave() throws Exception {
     String collection = randomCollection();
@@ -435,6 +489,31 @@ public abstract class MongoServiceTestBase extends VertxTestBase {
     await();
   }
 
+  @Test
+  public void testFindBatch() throws Exception {
+    int num = 10;
+    String collection = randomCollection();
+    insertDocs(collection, num, onSuccess(res -> {
+      mongoService.findBatch(collection, new JsonObject(), null, new JsonObject().put("foo", 1), -1, -1, 4, onSuccess(batch -> {
+        assertEquals(4, batch.getJsonArray("results").size());
+        assertEquals("bar0", batch.getJsonArray("results").getJsonObject(0).getString("foo"));
+        String cursor = batch.getString("cursor");
+        assertNotNull(cursor);
+        mongoService.findNextBatch(cursor, onSuccess(batch2 -> {
+          assertEquals(4, batch2.getJsonArray("results").size());
+          mongoService.findNextBatch(cursor, onSuccess(batch3 -> {
+            assertEquals(2, batch3.getJsonArray("results").size());
+            assertNull(batch3.getString("cursor"));
+            mongoService.findNextBatch(cursor, onFailure(t -> {
+              testComplete();
+            }));
+          }));
+        }));
+      }));
+    }));
+    await();
+  }
+
   @Test
   public void testReplace() {
     String collection = randomCollection();
@@ -611,7 +690,7 @@ public abstract class MongoServiceTestBase extends VertxTestBase {
         new JsonArray().add("blah").add(true).add(312)));
   }
 
-  private void insertDocs(String collection, int num, Handler<AsyncResult<Void>> resultHandler) {
+  protected void insertDocs(String collection, int num, Handler<AsyncResult<Void>> resultHandler) {
     if (num != 0) {
       AtomicInteger cnt = new AtomicInteger();
       for (int i = 0; i < num; i++) {
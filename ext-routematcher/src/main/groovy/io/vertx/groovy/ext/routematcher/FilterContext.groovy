@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.vertx.groovy.ext.routematcher;
+import groovy.transform.CompileStatic
+import io.vertx.lang.groovy.InternalHelper
+import io.vertx.groovy.core.http.HttpServerRequest
+/**
+ * A request going through the filters of a {@link io.vertx.ext.routematcher.RouteMatcher}.<p>
+ * A before filter either calls {@link io.vertx.ext.routematcher.FilterContext#next} to pass the request to the next filter, and to the handler after the
+ * last one, or ends the response itself so that neither the following filters nor the handler are called. The
+ * {@link io.vertx.ext.routematcher.FilterContext#next} call can happen later on, for instance once an authentication service replied, as long as the
+ * request is {@link io.vertx.core.http.HttpServerRequest#pause} meanwhile when its body matters.<p>
+ * After filters are called once the handler returned and also call {@link io.vertx.ext.routematcher.FilterContext#next} to pass the request on.<p>
+ */
+@CompileStatic
+public class FilterContext {
+  final def io.vertx.ext.routematcher.FilterContext delegate;
+  public FilterContext(io.vertx.ext.routematcher.FilterContext delegate) {
+    this.delegate = delegate;
+  }
+  public Object getDelegate() {
+    return delegate;
+  }
+  /**
+   * @return the request being filtered, with the params of its route
+   */
+  public HttpServerRequest request() {
+    def ret= HttpServerRequest.FACTORY.apply(this.delegate.request());
+    return ret;
+  }
+  /**
+   * Call the next filter, or the handler of the route after the last before filter.
+   */
+  public void next() {
+    this.delegate.next();
+  }
+
+  static final java.util.function.Function<io.vertx.ext.routematcher.FilterContext, FilterContext> FACTORY = io.vertx.lang.groovy.Factories.createFactory() {
+    io.vertx.ext.routematcher.FilterContext arg -> new FilterContext(arg);
+  };
+}
@@ -18,6 +18,7 @@ package io.vertx.groovy.ext.routematcher;
 import groovy.transform.CompileStatic
 import io.vertx.lang.groovy.InternalHelper
 import io.vertx.groovy.core.http.HttpServerRequest
+import io.vertx.ext.routematcher.RouteMatcherOptions
 import io.vertx.core.http.HttpMethod
 import io.vertx.core.Handler
 /**
@@ -36,6 +37,10 @@ public class RouteMatcher {
     def ret= RouteMatcher.FACTORY.apply(io.vertx.ext.routematcher.RouteMatcher.routeMatcher());
     return ret;
   }
+  public static RouteMatcher routeMatcher(Map<String, Object> options) {
+    def ret= RouteMatcher.FACTORY.apply(io.vertx.ext.routematcher.RouteMatcher.routeMatcher(options != null ? new io.vertx.ext.routematcher.RouteMatcherOptions(new io.vertx.core.json.JsonObject(options)) : null));
+    return ret;
+  }
   public RouteMatcher accept(HttpServerRequest request) {
     this.delegate.accept((io.vertx.core.http.HttpServerRequest)request.getDelegate());
     return this;
@@ -94,6 +99,83 @@ public class RouteMatcher {
     });
     return this;
   }
+  /**
+   * Route the requests for a virtual host to another route matcher. The host is compared ignoring case and port.
+   * The requests for the host are dispatched to that route matcher, even when none of its bindings matches, instead of
+   * being matched against the bindings of this route matcher. Hosts are looked up in a hash table before any pattern is
+   * evaluated, when a host is registered several times the first route matcher is used.
+   * @param host the host name
+   * @param routeMatcher the route matcher of the host
+   */
+  public RouteMatcher host(String host, RouteMatcher routeMatcher) {
+    this.delegate.host(host, (io.vertx.ext.routematcher.RouteMatcher)routeMatcher.getDelegate());
+    return this;
+  }
+  /**
+   * Route the requests with a header value to another route matcher, for instance to route on {@code Accept} or
+   * {@code Content-Type}. The header value is split on commas and the parameters following a semicolon are ignored, so
+   * {@code Accept: text/html;q=0.9, application/json} has both {@code text/html} and {@code application/json}, the
+   * first of them with a route matcher wins. Header values are looked up in a hash table before any pattern is
+   * evaluated, after the hosts and in the order the header names were first registered.
+   * @param name the header name
+   * @param value the header value
+   * @param routeMatcher the route matcher of the header value
+   */
+  public RouteMatcher header(String name, String value, RouteMatcher routeMatcher) {
+    this.delegate.header(name, value, (io.vertx.ext.routematcher.RouteMatcher)routeMatcher.getDelegate());
+    return this;
+  }
+  /**
+   * Add a filter called before the handler of every route, see {@link io.vertx.ext.routematcher.FilterContext}. Filters are only called for
+   * the requests matching a route and run in registration order.
+   * @param filter The filter to call
+   */
+  public RouteMatcher before(Handler<FilterContext> filter) {
+    this.delegate.before(new Handler<io.vertx.ext.routematcher.FilterContext>() {
+      public void handle(io.vertx.ext.routematcher.FilterContext event) {
+        filter.handle(FilterContext.FACTORY.apply(event));
+      }
+    });
+    return this;
+  }
+  /**
+   * Add a filter called before the handler of the routes registered with the pattern, whatever their method.
+   * @param pattern The pattern or regular expression of the routes
+   * @param filter The filter to call
+   */
+  public RouteMatcher before(String pattern, Handler<FilterContext> filter) {
+    this.delegate.before(pattern, new Handler<io.vertx.ext.routematcher.FilterContext>() {
+      public void handle(io.vertx.ext.routematcher.FilterContext event) {
+        filter.handle(FilterContext.FACTORY.apply(event));
+      }
+    });
+    return this;
+  }
+  /**
+   * Add a filter called after the handler of every route returned.
+   * @param filter The filter to call
+   */
+  public RouteMatcher after(Handler<FilterContext> filter) {
+    this.delegate.after(new Handler<io.vertx.ext.routematcher.FilterContext>() {
+      public void handle(io.vertx.ext.routematcher.FilterContext event) {
+        filter.handle(FilterContext.FACTORY.apply(event));
+      }
+    });
+    return this;
+  }
+  /**
+   * Add a filter called after the handler of the routes registered with the pattern returned, whatever their method.
+   * @param pattern The pattern or regular expression of the routes
+   * @param filter The filter to call
+   */
+  public RouteMatcher after(String pattern, Handler<FilterContext> filter) {
+    this.delegate.after(pattern, new Handler<io.vertx.ext.routematcher.FilterContext>() {
+      public void handle(io.vertx.ext.routematcher.FilterContext event) {
+        filter.handle(FilterContext.FACTORY.apply(event));
+      }
+    });
+    return this;
+  }
   /**
    * Specify a handler that will be called when no other handlers match.
    * If this handler is not specified default behaviour is to return a 404
@@ -106,6 +188,19 @@ public class RouteMatcher {
     });
     return this;
   }
+  /**
+   * Create a thread-safe route matcher with the bindings of this one, it can be shared by several event loops, for
+   * instance by all the instances of a verticle, instead of building the same routes in each of them.<p>
+   * Requests are dispatched without locking. Bindings added to the returned route matcher are applied to a copy of
+   * its routing table that atomically replaces the current one, so routes can be changed at runtime. Changes made to
+   * this route matcher after the call are not visible from the returned one.<p>
+   * The handlers are called on the thread of the request and must be safe to call from several event loops.
+   * @return the thread-safe route matcher
+   */
+  public RouteMatcher freeze() {
+    def ret= RouteMatcher.FACTORY.apply(this.delegate.freeze());
+    return ret;
+  }
 
   static final java.util.function.Function<io.vertx.ext.routematcher.RouteMatcher, RouteMatcher> FACTORY = io.vertx.lang.groovy.Factories.createFactory() {
     io.vertx.ext.routematcher.RouteMatcher arg -> new RouteMatcher(arg);
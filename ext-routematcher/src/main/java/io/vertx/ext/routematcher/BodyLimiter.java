@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.routematcher.impl.BodyLimiterImpl;
+
+/**
+ * Limits the size of the request bodies of handlers, typically the handlers bound in a {@link RouteMatcher}, so
+ * that a handler reading the body with {@link HttpServerRequest#bodyHandler} cannot be made to buffer an unbounded
+ * amount of data:<p>
+ * <pre>
+ *   BodyLimiter limiter = BodyLimiter.bodyLimiter(new BodyLimiterOptions().setMaxBodySize(64 * 1024));
+ *   routeMatcher.matchMethod(HttpMethod.POST, "/upload", limiter.limit(handler));
+ * </pre>
+ * A request announcing a larger {@code Content-Length} is rejected before the handler is called, otherwise the
+ * received bytes are counted and the request is rejected as soon as they exceed the limit: the response gets a
+ * {@code 413} status and the handler does not get any further data. When the handler already started the response,
+ * the connection is closed instead.<p>
+ */
+public interface BodyLimiter {
+
+  static BodyLimiter bodyLimiter(BodyLimiterOptions options) {
+    return new BodyLimiterImpl(options);
+  }
+
+  /**
+   * Wrap a handler so that the bodies of its requests are limited by this limiter
+   * @param handler The handler to limit
+   * @return the handler to bind instead
+   */
+  Handler<HttpServerRequest> limit(Handler<HttpServerRequest> handler);
+}
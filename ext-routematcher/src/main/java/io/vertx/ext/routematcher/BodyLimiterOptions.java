@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher;
+
+import io.vertx.codegen.annotations.Options;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Options controlling the request bodies a {@link BodyLimiter} lets through.
+ */
+@Options
+public class BodyLimiterOptions {
+
+  private static final long DEFAULT_MAXBODYSIZE = 1024 * 1024;
+  private static final boolean DEFAULT_AGGREGATE = false;
+
+  private long maxBodySize;
+  private boolean aggregate;
+
+  public BodyLimiterOptions() {
+    this.maxBodySize = DEFAULT_MAXBODYSIZE;
+    this.aggregate = DEFAULT_AGGREGATE;
+  }
+
+  public BodyLimiterOptions(BodyLimiterOptions other) {
+    this.maxBodySize = other.maxBodySize;
+    this.aggregate = other.aggregate;
+  }
+
+  public BodyLimiterOptions(JsonObject json) {
+    // The values are checked as when they are set
+    setMaxBodySize(json.getLong("maxBodySize", DEFAULT_MAXBODYSIZE));
+    setAggregate(json.getBoolean("aggregate", DEFAULT_AGGREGATE));
+  }
+
+  public long getMaxBodySize() {
+    return maxBodySize;
+  }
+
+  /**
+   * Set the maximum size in bytes of a request body, larger bodies get a {@code 413} response as soon as the
+   * {@code Content-Length} header or the bytes received so far exceed it.
+   */
+  public BodyLimiterOptions setMaxBodySize(long maxBodySize) {
+    if (maxBodySize < 0) {
+      throw new IllegalArgumentException("maxBodySize must be >= 0");
+    }
+    this.maxBodySize = maxBodySize;
+    return this;
+  }
+
+  public boolean isAggregate() {
+    return aggregate;
+  }
+
+  /**
+   * When enabled, the whole body is read before the handler is called, so the handler is never called for a request
+   * that is rejected. The body is read into a buffer sized from the {@code Content-Length} header up to 8 KiB, the
+   * buffer then grows as the data arrives, so a request announcing a large body cannot make the server allocate it
+   * upfront. The handler then gets the body right after it returns, through the handlers it set on the request.
+   */
+  public BodyLimiterOptions setAggregate(boolean aggregate) {
+    this.aggregate = aggregate;
+    return this;
+  }
+
+}
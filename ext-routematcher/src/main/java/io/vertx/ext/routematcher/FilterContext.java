@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher;
+
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.http.HttpServerRequest;
+
+/**
+ * A request going through the filters of a {@link RouteMatcher}.<p>
+ * A before filter either calls {@link #next()} to pass the request to the next filter, and to the handler after the
+ * last one, or ends the response itself so that neither the following filters nor the handler are called. The
+ * {@link #next()} call can happen later on, for instance once an authentication service replied, as long as the
+ * request is {@link HttpServerRequest#pause() paused} meanwhile when its body matters.<p>
+ * After filters are called once the handler returned and also call {@link #next()} to pass the request on.<p>
+ */
+@VertxGen
+public interface FilterContext {
+
+  /**
+   * @return the request being filtered, with the params of its route
+   */
+  HttpServerRequest request();
+
+  /**
+   * Call the next filter, or the handler of the route after the last before filter.
+   */
+  void next();
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.routematcher.impl.ResponseCacheImpl;
+
+/**
+ * Caches the responses of request handlers, typically the handlers bound in a {@link RouteMatcher}:<p>
+ * <pre>
+ *   ResponseCache cache = ResponseCache.responseCache(vertx, new ResponseCacheOptions().addKeyParam("id"));
+ *   routeMatcher.matchMethod(HttpMethod.GET, "/catalogue/:id", cache.cache(handler));
+ * </pre>
+ * Only {@code GET} requests without {@code Authorization} header are cached, under their method and URI, or their
+ * path and the values of the key params when some are configured, the values of the configured key headers and the
+ * values of the headers named by the {@code Vary} header of the response. Only complete {@code 200} responses without
+ * {@code Set-Cookie} header, not varying on {@code *} and whose {@code Cache-Control} header allows it, so not
+ * {@code private} ones, are cached until their time to live expires or the cache is full. The {@code Date} header and
+ * the headers of the connection are not cached. Cached responses get an {@code ETag} header unless the handler set one, and a request whose
+ * {@code If-None-Match} header matches it gets a {@code 304} response.<p>
+ * While the handler is producing the response for a key, other requests with the same key wait for that response
+ * rather than calling the handler too.<p>
+ * A cache can be shared between the handlers of several route matchers and verticles.<p>
+ */
+public interface ResponseCache {
+
+  static ResponseCache responseCache(Vertx vertx) {
+    return new ResponseCacheImpl(vertx, new ResponseCacheOptions());
+  }
+
+  static ResponseCache responseCache(Vertx vertx, ResponseCacheOptions options) {
+    return new ResponseCacheImpl(vertx, options);
+  }
+
+  /**
+   * Wrap a handler so that its responses are served from this cache
+   * @param handler The handler producing the responses
+   * @return the handler to bind instead
+   */
+  Handler<HttpServerRequest> cache(Handler<HttpServerRequest> handler);
+
+  /**
+   * Remove all the cached responses
+   */
+  void clear();
+}
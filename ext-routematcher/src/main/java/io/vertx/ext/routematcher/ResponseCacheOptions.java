@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher;
+
+import io.vertx.codegen.annotations.Options;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options controlling which responses a {@link ResponseCache} keeps and for how long.
+ */
+@Options
+public class ResponseCacheOptions {
+
+  private static final int DEFAULT_MAXENTRIES = 1000;
+  private static final long DEFAULT_MAXSIZE = 10 * 1024 * 1024;
+  private static final long DEFAULT_TTL = 60000;
+
+  private int maxEntries;
+  private long maxSize;
+  private long ttl;
+  private List<String> keyParams = new ArrayList<>();
+  private List<String> keyHeaders = new ArrayList<>();
+
+  public ResponseCacheOptions() {
+    this.maxEntries = DEFAULT_MAXENTRIES;
+    this.maxSize = DEFAULT_MAXSIZE;
+    this.ttl = DEFAULT_TTL;
+  }
+
+  public ResponseCacheOptions(ResponseCacheOptions other) {
+    this.maxEntries = other.maxEntries;
+    this.maxSize = other.maxSize;
+    this.ttl = other.ttl;
+    this.keyParams = new ArrayList<>(other.keyParams);
+    this.keyHeaders = new ArrayList<>(other.keyHeaders);
+  }
+
+  public ResponseCacheOptions(JsonObject json) {
+    // The values are checked as when they are set
+    setMaxEntries(json.getInteger("maxEntries", DEFAULT_MAXENTRIES));
+    setMaxSize(json.getLong("maxSize", DEFAULT_MAXSIZE));
+    setTtl(json.getLong("ttl", DEFAULT_TTL));
+    addStrings(json.getJsonArray("keyParams"), keyParams, "keyParams");
+    addStrings(json.getJsonArray("keyHeaders"), keyHeaders, "keyHeaders");
+  }
+
+  private static void addStrings(JsonArray arr, List<String> list, String name) {
+    if (arr != null) {
+      for (Object obj: arr) {
+        if (obj instanceof String) {
+          list.add((String)obj);
+        } else {
+          throw new IllegalArgumentException("Invalid type " + obj.getClass() + " in " + name + " array");
+        }
+      }
+    }
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Set the maximum number of responses kept, the least recently used response is evicted first.
+   */
+  public ResponseCacheOptions setMaxEntries(int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be >= 1");
+    }
+    this.maxEntries = maxEntries;
+    return this;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Set the maximum number of bytes of body and headers kept for all the responses, the least recently used
+   * response is evicted first. A response larger than this size is never cached.
+   */
+  public ResponseCacheOptions setMaxSize(long maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be >= 1");
+    }
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  public long getTtl() {
+    return ttl;
+  }
+
+  /**
+   * Set the time in ms a response is served from the cache before the handler is called again.
+   */
+  public ResponseCacheOptions setTtl(long ttl) {
+    if (ttl < 1) {
+      throw new IllegalArgumentException("ttl must be >= 1");
+    }
+    this.ttl = ttl;
+    return this;
+  }
+
+  /**
+   * Add a request param, either from the query or captured by the pattern, whose value selects the cached response.
+   * By default the method and the whole URI, with its query string, select it. Once a key param is added, the method,
+   * the path and the key params do, so that other query params, such as tracking ones, do not split the cache.
+   */
+  public ResponseCacheOptions addKeyParam(String name) {
+    keyParams.add(name);
+    return this;
+  }
+
+  public List<String> getKeyParams() {
+    return keyParams;
+  }
+
+  /**
+   * Add a request header whose value selects the cached response, e.g. {@code Accept-Encoding}.
+   */
+  public ResponseCacheOptions addKeyHeader(String name) {
+    keyHeaders.add(name);
+    return this;
+  }
+
+  public List<String> getKeyHeaders() {
+    return keyHeaders;
+  }
+
+}
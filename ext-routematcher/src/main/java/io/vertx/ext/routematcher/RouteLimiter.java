@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.routematcher.impl.RouteLimiterImpl;
+
+/**
+ * Limits the rate and the concurrency of the requests of handlers, typically the handlers bound in a
+ * {@link RouteMatcher}, so that an overloaded route does not slow down the others:<p>
+ * <pre>
+ *   RouteLimiter limiter = RouteLimiter.routeLimiter(new RouteLimiterOptions().setMaxConcurrency(20).setRate(100));
+ *   routeMatcher.matchMethod(HttpMethod.GET, "/search", limiter.limit(handler));
+ * </pre>
+ * Requests over the limits are rejected right away, with a {@code 429} response when the rate is exceeded and a
+ * {@code 503} response when too many requests are being handled. The limits of a limiter are shared by all the
+ * handlers it wraps, on all the event loops, and are enforced with lock-free counters.<p>
+ */
+public interface RouteLimiter {
+
+  static RouteLimiter routeLimiter(RouteLimiterOptions options) {
+    return new RouteLimiterImpl(options);
+  }
+
+  /**
+   * Wrap a handler so that its requests are limited by this limiter
+   * @param handler The handler to limit
+   * @return the handler to bind instead
+   */
+  Handler<HttpServerRequest> limit(Handler<HttpServerRequest> handler);
+
+  /**
+   * @return the current concurrency limit, it changes over time with adaptive concurrency
+   */
+  int concurrencyLimit();
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher;
+
+import io.vertx.codegen.annotations.Options;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Options controlling the requests a {@link RouteLimiter} lets through.
+ */
+@Options
+public class RouteLimiterOptions {
+
+  private static final int DEFAULT_MAXCONCURRENCY = 0;
+  private static final int DEFAULT_RATE = 0;
+  private static final int DEFAULT_BURST = 10;
+  private static final boolean DEFAULT_ADAPTIVECONCURRENCY = false;
+  private static final int DEFAULT_MINCONCURRENCY = 1;
+  private static final long DEFAULT_TARGETLATENCY = 100;
+
+  private int maxConcurrency;
+  private int rate;
+  private int burst;
+  private boolean adaptiveConcurrency;
+  private int minConcurrency;
+  private long targetLatency;
+
+  public RouteLimiterOptions() {
+    this.maxConcurrency = DEFAULT_MAXCONCURRENCY;
+    this.rate = DEFAULT_RATE;
+    this.burst = DEFAULT_BURST;
+    this.adaptiveConcurrency = DEFAULT_ADAPTIVECONCURRENCY;
+    this.minConcurrency = DEFAULT_MINCONCURRENCY;
+    this.targetLatency = DEFAULT_TARGETLATENCY;
+  }
+
+  public RouteLimiterOptions(RouteLimiterOptions other) {
+    this.maxConcurrency = other.maxConcurrency;
+    this.rate = other.rate;
+    this.burst = other.burst;
+    this.adaptiveConcurrency = other.adaptiveConcurrency;
+    this.minConcurrency = other.minConcurrency;
+    this.targetLatency = other.targetLatency;
+  }
+
+  public RouteLimiterOptions(JsonObject json) {
+    // The values are checked as when they are set
+    setMaxConcurrency(json.getInteger("maxConcurrency", DEFAULT_MAXCONCURRENCY));
+    setRate(json.getInteger("rate", DEFAULT_RATE));
+    setBurst(json.getInteger("burst", DEFAULT_BURST));
+    this.adaptiveConcurrency = json.getBoolean("adaptiveConcurrency", DEFAULT_ADAPTIVECONCURRENCY);
+    setMinConcurrency(json.getInteger("minConcurrency", DEFAULT_MINCONCURRENCY));
+    setTargetLatency(json.getLong("targetLatency", DEFAULT_TARGETLATENCY));
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  /**
+   * Set the maximum number of requests being handled at once, further requests get a {@code 503} response. A request
+   * is handled until its response ends or its connection is closed. The default {@code 0} means no limit.
+   */
+  public RouteLimiterOptions setMaxConcurrency(int maxConcurrency) {
+    if (maxConcurrency < 0) {
+      throw new IllegalArgumentException("maxConcurrency must be >= 0");
+    }
+    this.maxConcurrency = maxConcurrency;
+    return this;
+  }
+
+  public int getRate() {
+    return rate;
+  }
+
+  /**
+   * Set the number of requests accepted per second, further requests get a {@code 429} response with a
+   * {@code Retry-After} header. The default {@code 0} means no limit.
+   */
+  public RouteLimiterOptions setRate(int rate) {
+    if (rate < 0) {
+      throw new IllegalArgumentException("rate must be >= 0");
+    }
+    this.rate = rate;
+    return this;
+  }
+
+  public int getBurst() {
+    return burst;
+  }
+
+  /**
+   * Set the number of requests accepted at once above the rate, after the route was idle.
+   */
+  public RouteLimiterOptions setBurst(int burst) {
+    if (burst < 1) {
+      throw new IllegalArgumentException("burst must be >= 1");
+    }
+    this.burst = burst;
+    return this;
+  }
+
+  public boolean isAdaptiveConcurrency() {
+    return adaptiveConcurrency;
+  }
+
+  /**
+   * When enabled, the concurrency limit is adapted to the latency of the responses: it is increased by one after as
+   * many responses faster than the target latency as the limit and decreased by 10% when a response is slower, at
+   * most once per target latency, without going over the max concurrency or under the min concurrency.
+   */
+  public RouteLimiterOptions setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+    this.adaptiveConcurrency = adaptiveConcurrency;
+    return this;
+  }
+
+  public int getMinConcurrency() {
+    return minConcurrency;
+  }
+
+  /**
+   * Set the lowest concurrency limit adaptive concurrency can set.
+   */
+  public RouteLimiterOptions setMinConcurrency(int minConcurrency) {
+    if (minConcurrency < 1) {
+      throw new IllegalArgumentException("minConcurrency must be >= 1");
+    }
+    this.minConcurrency = minConcurrency;
+    return this;
+  }
+
+  public long getTargetLatency() {
+    return targetLatency;
+  }
+
+  /**
+   * Set the response time in ms above which adaptive concurrency decreases the concurrency limit.
+   */
+  public RouteLimiterOptions setTargetLatency(long targetLatency) {
+    if (targetLatency < 1) {
+      throw new IllegalArgumentException("targetLatency must be >= 1");
+    }
+    this.targetLatency = targetLatency;
+    return this;
+  }
+
+}
@@ -17,12 +17,16 @@
 package io.vertx.ext.routematcher;
 
 import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.GenIgnore;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.routematcher.impl.RouteMatcherImpl;
 
+import java.util.Map;
+
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -33,6 +37,10 @@ public interface RouteMatcher {
     return new RouteMatcherImpl();
   }
 
+  static RouteMatcher routeMatcher(RouteMatcherOptions options) {
+    return new RouteMatcherImpl(options);
+  }
+
   @Fluent
   RouteMatcher accept(HttpServerRequest request);
 
@@ -70,6 +78,61 @@ public interface RouteMatcher {
   @Fluent
   RouteMatcher allWithRegEx(String regex, Handler<HttpServerRequest> handler);
 
+  /**
+   * Route the requests for a virtual host to another route matcher. The host is compared ignoring case and port.
+   * The requests for the host are dispatched to that route matcher, even when none of its bindings matches, instead of
+   * being matched against the bindings of this route matcher. Hosts are looked up in a hash table before any pattern is
+   * evaluated, when a host is registered several times the first route matcher is used.
+   * @param host the host name
+   * @param routeMatcher the route matcher of the host
+   */
+  @Fluent
+  RouteMatcher host(String host, RouteMatcher routeMatcher);
+
+  /**
+   * Route the requests with a header value to another route matcher, for instance to route on {@code Accept} or
+   * {@code Content-Type}. The header value is split on commas and the parameters following a semicolon are ignored, so
+   * {@code Accept: text/html;q=0.9, application/json} has both {@code text/html} and {@code application/json}, the
+   * first of them with a route matcher wins. Header values are looked up in a hash table before any pattern is
+   * evaluated, after the hosts and in the order the header names were first registered.
+   * @param name the header name
+   * @param value the header value
+   * @param routeMatcher the route matcher of the header value
+   */
+  @Fluent
+  RouteMatcher header(String name, String value, RouteMatcher routeMatcher);
+
+  /**
+   * Add a filter called before the handler of every route, see {@link FilterContext}. Filters are only called for
+   * the requests matching a route and run in registration order.
+   * @param filter The filter to call
+   */
+  @Fluent
+  RouteMatcher before(Handler<FilterContext> filter);
+
+  /**
+   * Add a filter called before the handler of the routes registered with the pattern, whatever their method.
+   * @param pattern The pattern or regular expression of the routes
+   * @param filter The filter to call
+   */
+  @Fluent
+  RouteMatcher before(String pattern, Handler<FilterContext> filter);
+
+  /**
+   * Add a filter called after the handler of every route returned.
+   * @param filter The filter to call
+   */
+  @Fluent
+  RouteMatcher after(Handler<FilterContext> filter);
+
+  /**
+   * Add a filter called after the handler of the routes registered with the pattern returned, whatever their method.
+   * @param pattern The pattern or regular expression of the routes
+   * @param filter The filter to call
+   */
+  @Fluent
+  RouteMatcher after(String pattern, Handler<FilterContext> filter);
+
   /**
    * Specify a handler that will be called when no other handlers match.
    * If this handler is not specified default behaviour is to return a 404
@@ -77,4 +140,41 @@ public interface RouteMatcher {
   @Fluent
   RouteMatcher noMatch(Handler<HttpServerRequest> handler);
 
+  /**
+   * Create a thread-safe route matcher with the bindings of this one, it can be shared by several event loops, for
+   * instance by all the instances of a verticle, instead of building the same routes in each of them.<p>
+   * Requests are dispatched without locking. Bindings added to the returned route matcher are applied to a copy of
+   * its routing table that atomically replaces the current one, so routes can be changed at runtime. Changes made to
+   * this route matcher after the call are not visible from the returned one.<p>
+   * The handlers are called on the thread of the request and must be safe to call from several event loops.
+   *
+   * @return the thread-safe route matcher
+   */
+  RouteMatcher freeze();
+
+  /**
+   * Take a snapshot of the dispatch metrics, the map is empty unless {@link RouteMatcherOptions#isMetricsEnabled()}
+   * is enabled.<p>
+   * Each binding is keyed by its method and pattern, for instance {@code GET /users/:id}, and the requests no binding
+   * matched are under {@code noMatch}. Each entry has the number of requests {@code count}, the number of patterns
+   * tried and not matched before routing them {@code failedAttempts} and the time spent routing them in nanoseconds,
+   * {@code matchTime} in total and {@code meanMatchTime} per request. The handlers are not included in the time.
+   *
+   * @return the metrics
+   */
+  @GenIgnore
+  Map<String, JsonObject> metrics();
+
+  /**
+   * Find the routes that are never used because a route registered before them matches every path they match, for
+   * instance {@code GET /users/me} registered after {@code GET /users/:id}. The shadowed routes are also logged when
+   * the route matcher is frozen.<p>
+   * Routes are keyed by their method and pattern like the metrics, {@code ALL} standing for the routes of all the
+   * methods.
+   *
+   * @return the route shadowing each shadowed route
+   */
+  @GenIgnore
+  Map<String, String> shadowedRoutes();
+
 }
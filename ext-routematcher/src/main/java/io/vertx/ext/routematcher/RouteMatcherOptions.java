@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher;
+
+import io.vertx.codegen.annotations.Options;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Options controlling how a {@link RouteMatcher} indexes and dispatches its bindings.
+ */
+@Options
+public class RouteMatcherOptions {
+
+  private static final boolean DEFAULT_RADIXTREE = false;
+  private static final boolean DEFAULT_COMBINEDREGEX = false;
+  private static final boolean DEFAULT_METRICSENABLED = false;
+  private static final boolean DEFAULT_ADAPTIVEORDERING = false;
+  private static final int DEFAULT_ADAPTIVEORDERINGINTERVAL = 10000;
+  private static final boolean DEFAULT_NORMALIZEPATHS = false;
+  private static final int DEFAULT_PATHCACHESIZE = 1000;
+
+  private boolean radixTree;
+  private boolean combinedRegEx;
+  private boolean metricsEnabled;
+  private boolean adaptiveOrdering;
+  private int adaptiveOrderingInterval;
+  private boolean normalizePaths;
+  private int pathCacheSize;
+
+  public RouteMatcherOptions() {
+    this.radixTree = DEFAULT_RADIXTREE;
+    this.combinedRegEx = DEFAULT_COMBINEDREGEX;
+    this.metricsEnabled = DEFAULT_METRICSENABLED;
+    this.adaptiveOrdering = DEFAULT_ADAPTIVEORDERING;
+    this.adaptiveOrderingInterval = DEFAULT_ADAPTIVEORDERINGINTERVAL;
+    this.normalizePaths = DEFAULT_NORMALIZEPATHS;
+    this.pathCacheSize = DEFAULT_PATHCACHESIZE;
+  }
+
+  public RouteMatcherOptions(RouteMatcherOptions other) {
+    this.radixTree = other.radixTree;
+    this.combinedRegEx = other.combinedRegEx;
+    this.metricsEnabled = other.metricsEnabled;
+    this.adaptiveOrdering = other.adaptiveOrdering;
+    this.adaptiveOrderingInterval = other.adaptiveOrderingInterval;
+    this.normalizePaths = other.normalizePaths;
+    this.pathCacheSize = other.pathCacheSize;
+  }
+
+  public RouteMatcherOptions(JsonObject json) {
+    this.radixTree = json.getBoolean("radixTree", DEFAULT_RADIXTREE);
+    this.combinedRegEx = json.getBoolean("combinedRegEx", DEFAULT_COMBINEDREGEX);
+    this.metricsEnabled = json.getBoolean("metricsEnabled", DEFAULT_METRICSENABLED);
+    this.adaptiveOrdering = json.getBoolean("adaptiveOrdering", DEFAULT_ADAPTIVEORDERING);
+    this.adaptiveOrderingInterval = json.getInteger("adaptiveOrderingInterval", DEFAULT_ADAPTIVEORDERINGINTERVAL);
+    this.normalizePaths = json.getBoolean("normalizePaths", DEFAULT_NORMALIZEPATHS);
+    this.pathCacheSize = json.getInteger("pathCacheSize", DEFAULT_PATHCACHESIZE);
+  }
+
+  public boolean isRadixTree() {
+    return radixTree;
+  }
+
+  /**
+   * When enabled, simple patterns made only of literal segments and {@code :param} segments are compiled into a
+   * radix tree so that dispatch cost depends on the length of the path rather than on the number of bindings.
+   * Other patterns and regular expressions are still matched in registration order, and the first registered
+   * matching binding always wins.
+   */
+  public RouteMatcherOptions setRadixTree(boolean radixTree) {
+    this.radixTree = radixTree;
+    return this;
+  }
+
+  public boolean isCombinedRegEx() {
+    return combinedRegEx;
+  }
+
+  /**
+   * When enabled, consecutive regular expression bindings of a method are compiled into a combined alternation so
+   * that a path is tested against all of them with one match call, rather than with one match call per binding. The
+   * alternatives are still tried one after the other by the regular expression engine, so the cost of a miss keeps
+   * growing with the number of bindings. The first registered matching binding still wins. Bindings using named
+   * groups or back references are matched on their own.
+   */
+  public RouteMatcherOptions setCombinedRegEx(boolean combinedRegEx) {
+    this.combinedRegEx = combinedRegEx;
+    return this;
+  }
+
+  public boolean isMetricsEnabled() {
+    return metricsEnabled;
+  }
+
+  /**
+   * When enabled, the route matcher counts the requests routed to each binding and to the no match handler, along
+   * with the patterns tried before routing them and the time spent routing them, see {@link RouteMatcher#metrics()}.
+   */
+  public RouteMatcherOptions setMetricsEnabled(boolean metricsEnabled) {
+    this.metricsEnabled = metricsEnabled;
+    return this;
+  }
+
+  public boolean isAdaptiveOrdering() {
+    return adaptiveOrdering;
+  }
+
+  /**
+   * When enabled, the bindings matched one by one are periodically reordered so that the most hit ones are tested
+   * first. Only bindings that cannot match the same path, as proven by their literal prefixes, are moved ahead of
+   * each other, so the binding used for a given path does not change.
+   */
+  public RouteMatcherOptions setAdaptiveOrdering(boolean adaptiveOrdering) {
+    this.adaptiveOrdering = adaptiveOrdering;
+    return this;
+  }
+
+  public int getAdaptiveOrderingInterval() {
+    return adaptiveOrderingInterval;
+  }
+
+  /**
+   * Set the number of requests dispatched by each thread between two reorderings of the bindings.
+   */
+  public RouteMatcherOptions setAdaptiveOrderingInterval(int adaptiveOrderingInterval) {
+    if (adaptiveOrderingInterval < 1) {
+      throw new IllegalArgumentException("adaptiveOrderingInterval must be >= 1");
+    }
+    this.adaptiveOrderingInterval = adaptiveOrderingInterval;
+    return this;
+  }
+
+  public boolean isNormalizePaths() {
+    return normalizePaths;
+  }
+
+  /**
+   * When enabled, request paths are normalized before being matched: percent-encoded characters are decoded, empty
+   * and {@code .} segments are removed, {@code ..} segments are resolved and the trailing slash is removed.
+   * Params are then captured from the normalized path, so their values are decoded, except for {@code /} and
+   * {@code %} which stay encoded as {@code %2F} and {@code %25} so that an encoded slash never splits a segment. A
+   * handler accepting such characters in a param decodes these two sequences itself, e.g. a request for
+   * {@code /files/a%2Fb%20c} matched by {@code /files/:name} gets {@code a%2Fb c} as the {@code name} param.
+   */
+  public RouteMatcherOptions setNormalizePaths(boolean normalizePaths) {
+    this.normalizePaths = normalizePaths;
+    return this;
+  }
+
+  public int getPathCacheSize() {
+    return pathCacheSize;
+  }
+
+  /**
+   * Set the number of normalized paths remembered by each thread, so that hot paths are normalized only once.
+   * Paths that are already normalized are never cached.
+   */
+  public RouteMatcherOptions setPathCacheSize(int pathCacheSize) {
+    if (pathCacheSize < 0) {
+      throw new IllegalArgumentException("pathCacheSize must be >= 0");
+    }
+    this.pathCacheSize = pathCacheSize;
+    return this;
+  }
+
+}
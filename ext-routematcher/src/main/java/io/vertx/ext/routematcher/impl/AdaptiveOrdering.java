@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the most hit bindings of a list ahead of the others.<p>
+ * Bindings are matched in list order and the first matching one wins, so two bindings can only be swapped when no
+ * path matches both of them. This is proven with their literal prefixes: when neither prefix starts with the other,
+ * no path can start with both. The reordering is an insertion sort by hits that only swaps adjacent disjoint
+ * bindings, so any two bindings that may match the same path keep their relative order and the winner of any path is
+ * unchanged. As a consequence the list is no longer sorted by registration order.<p>
+ * Requests are counted per thread to decide when to reorder without contention between event loops.<p>
+ */
+class AdaptiveOrdering {
+
+  private final int interval;
+  private final ThreadLocal<int[]> requests = ThreadLocal.withInitial(() -> new int[1]);
+
+  AdaptiveOrdering(int interval) {
+    this.interval = interval;
+  }
+
+  /**
+   * Count a request of the current thread.
+   *
+   * @return whether the bindings should be reordered
+   */
+  boolean isDue() {
+    int[] count = requests.get();
+    if (++count[0] < interval) {
+      return false;
+    }
+    count[0] = 0;
+    return true;
+  }
+
+  /**
+   * @return the reordered bindings or {@code null} when the order is unchanged
+   */
+  static List<PatternBinding> reorder(List<PatternBinding> bindings) {
+    int size = bindings.size();
+    PatternBinding[] sorted = bindings.toArray(new PatternBinding[size]);
+    String[] prefixes = new String[size];
+    long[] hits = new long[size];
+    for (int i = 0; i < size; i++) {
+      prefixes[i] = sorted[i].prefix;
+      hits[i] = sorted[i].metrics.count();
+    }
+    boolean changed = false;
+    for (int i = 1; i < size; i++) {
+      for (int j = i; j > 0 && hits[j] > hits[j - 1] && isDisjoint(prefixes[j - 1], prefixes[j]); j--) {
+        swap(sorted, j);
+        swap(prefixes, j);
+        long h = hits[j];
+        hits[j] = hits[j - 1];
+        hits[j - 1] = h;
+        changed = true;
+      }
+    }
+    if (!changed) {
+      return null;
+    }
+    List<PatternBinding> reordered = new ArrayList<>(size);
+    for (PatternBinding binding: sorted) {
+      reordered.add(binding);
+    }
+    return reordered;
+  }
+
+  private static boolean isDisjoint(String prefix1, String prefix2) {
+    return !prefix1.startsWith(prefix2) && !prefix2.startsWith(prefix1);
+  }
+
+  private static <T> void swap(T[] array, int j) {
+    T t = array[j];
+    array[j] = array[j - 1];
+    array[j - 1] = t;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.routematcher.BodyLimiter;
+import io.vertx.ext.routematcher.BodyLimiterOptions;
+
+/**
+ * The handler gets a wrapper of the request, the limiter sets its own handlers on the actual request to count the
+ * received bytes and passes the data on to the handlers set on the wrapper while the body is under the limit.<p>
+ * The buffer the body is aggregated in, for {@link HttpServerRequest#bodyHandler} or before calling the handler, is
+ * sized from the {@code Content-Length} header up to {@link #MAX_INITIAL_SIZE} and grows as the data arrives, the
+ * header is sent by the client and is not trusted to allocate memory.<p>
+ */
+public class BodyLimiterImpl implements BodyLimiter {
+
+  static final int MAX_INITIAL_SIZE = 8192;
+
+  private final long maxBodySize;
+  private final boolean aggregate;
+
+  public BodyLimiterImpl(BodyLimiterOptions options) {
+    this.maxBodySize = options.getMaxBodySize();
+    this.aggregate = options.isAggregate();
+  }
+
+  @Override
+  public Handler<HttpServerRequest> limit(Handler<HttpServerRequest> handler) {
+    return request -> handle(handler, request);
+  }
+
+  private void handle(Handler<HttpServerRequest> handler, HttpServerRequest request) {
+    long length = contentLength(request);
+    if (length > maxBodySize) {
+      reject(request.response());
+      return;
+    }
+    Body body = new Body(request, length);
+    if (aggregate) {
+      body.aggregate(handler);
+    } else {
+      handler.handle(body);
+    }
+  }
+
+  /**
+   * @return the announced length of the body, or -1 when it is unknown
+   */
+  private static long contentLength(HttpServerRequest request) {
+    String header = request.headers().get("Content-Length");
+    if (header != null) {
+      try {
+        return Long.parseLong(header.trim());
+      } catch (NumberFormatException ignore) {
+        // The length will be counted
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Answer with a 413 and close the connection so that the client stops sending the body, or only close it when the
+   * handler already started the response.
+   */
+  private static void reject(HttpServerResponse response) {
+    if (!response.headWritten()) {
+      response.setStatusCode(413);
+      response.putHeader("Connection", "close");
+      response.end();
+    }
+    response.close();
+  }
+
+  /**
+   * The body of a request, read by the limiter and passed on to the handlers set on the wrapper of the request.
+   */
+  private class Body extends HttpServerRequestWrapper {
+
+    private final int initialSize;
+    private long received;
+    private boolean rejected;
+    // The buffered body, when aggregating or when the handler set a body handler
+    private Buffer buffer;
+    // Set once the aggregated body has been passed to the handler, handlers set afterwards are called right away
+    private boolean delivered;
+    private Handler<Buffer> dataHandler;
+    private Handler<Buffer> bodyHandler;
+    private Handler<Void> endHandler;
+
+    Body(HttpServerRequest target, long length) {
+      super(target, target.response());
+      this.initialSize = length > 0 ? (int) Math.min(length, MAX_INITIAL_SIZE) : 0;
+      target.handler(this::handleData);
+      target.endHandler(v -> {
+        if (!rejected && bodyHandler != null) {
+          bodyHandler.handle(buffer);
+        }
+        if (!rejected && endHandler != null) {
+          endHandler.handle(v);
+        }
+      });
+    }
+
+    void aggregate(Handler<HttpServerRequest> handler) {
+      buffer = Buffer.buffer(initialSize);
+      delegate.endHandler(v -> {
+        if (!rejected) {
+          handler.handle(this);
+          deliver();
+        }
+      });
+    }
+
+    private void handleData(Buffer data) {
+      if (rejected) {
+        return;
+      }
+      received += data.length();
+      if (received > maxBodySize) {
+        rejected = true;
+        reject(delegate.response());
+        return;
+      }
+      if (buffer != null) {
+        buffer.appendBuffer(data);
+      }
+      if (dataHandler != null) {
+        dataHandler.handle(data);
+      }
+    }
+
+    private void deliver() {
+      delivered = true;
+      if (dataHandler != null && buffer.length() > 0) {
+        dataHandler.handle(buffer);
+      }
+      if (bodyHandler != null) {
+        bodyHandler.handle(buffer);
+      }
+      if (endHandler != null) {
+        endHandler.handle(null);
+      }
+    }
+
+    @Override
+    public HttpServerRequest handler(Handler<Buffer> handler) {
+      dataHandler = handler;
+      if (delivered && dataHandler != null && buffer.length() > 0) {
+        dataHandler.handle(buffer);
+      }
+      return this;
+    }
+
+    @Override
+    public HttpServerRequest bodyHandler(Handler<Buffer> handler) {
+      bodyHandler = handler;
+      if (buffer == null) {
+        buffer = Buffer.buffer(initialSize);
+      }
+      if (delivered && bodyHandler != null) {
+        bodyHandler.handle(buffer);
+      }
+      return this;
+    }
+
+    @Override
+    public HttpServerRequest endHandler(Handler<Void> handler) {
+      endHandler = handler;
+      if (delivered && endHandler != null) {
+        endHandler.handle(null);
+      }
+      return this;
+    }
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.http.HttpServerRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A run of consecutive bindings matched with a combined alternation.<p>
+ * The regular expressions of the bindings are compiled into one {@link Pattern} alternating them, where each
+ * alternative is wrapped in a capturing group, the group that participated in the match tells which binding matched
+ * and the groups it contains are the params of that binding. This is still a backtracking {@code java.util.regex}
+ * match rather than an automaton: a failing path is tried against every alternative in turn, so the gain is one
+ * match call and one {@link Matcher} reset per run instead of per binding, not a path scanned only once. Alternatives
+ * are tried in order so the first registered binding still wins, and the literal prefix shared by all the
+ * alternatives is checked before running the regular expression at all.<p>
+ * Bindings using named groups, back references, quoting, comments mode or compile flags cannot be combined, nor can
+ * bindings whose regular expression does not compile inside its wrapper or gets other groups there. This is checked
+ * once when the binding is registered. They are kept in a run of their own and matched with their own pattern, as
+ * well as simple patterns which are matched with their tokens.<p>
+ * Instances of this class can be used concurrently, each thread reuses its own {@link Matcher}<p>
+ */
+class CombinedRegEx {
+
+  private static final String REGEX_METACHARS = "\\^$.|?*+()[]{}";
+  // Named groups, back references, quoting which may run past the wrapper and comments mode which may swallow it
+  private static final Pattern NOT_COMBINABLE =
+    Pattern.compile("\\(\\?<[a-zA-Z]|\\\\[1-9]|\\\\k<|\\\\Q|\\(\\?[a-zA-Z-]*x");
+
+  final PatternBinding[] bindings;
+  private final String prefix;
+  private final int minOrder;
+  private final ThreadLocal<Matcher> matchers;
+  // The group of the alternative of each binding and the group of its first param
+  private final int[] alternatives;
+  private final int[] groups;
+
+  private CombinedRegEx(List<PatternBinding> bindings) {
+    this.bindings = bindings.toArray(new PatternBinding[bindings.size()]);
+    this.alternatives = new int[this.bindings.length];
+    this.groups = new int[this.bindings.length];
+    PatternBinding first = this.bindings[0];
+    int min = Integer.MAX_VALUE;
+    for (PatternBinding binding: this.bindings) {
+      min = Math.min(min, binding.order);
+    }
+    minOrder = min;
+    if (first.pattern == null) {
+      prefix = first.prefix;
+      matchers = null;
+    } else if (this.bindings.length == 1) {
+      prefix = first.prefix;
+      matchers = ThreadLocal.withInitial(() -> first.pattern.matcher(""));
+      groups[0] = 1;
+    } else {
+      StringBuilder regex = new StringBuilder();
+      String common = null;
+      int group = 1;
+      for (int i = 0; i < this.bindings.length; i++) {
+        PatternBinding binding = this.bindings[i];
+        String literal = binding.prefix;
+        common = common == null ? literal : literal.substring(0, commonPrefixLength(common, literal));
+        if (i > 0) {
+          regex.append('|');
+        }
+        regex.append(wrap(binding.pattern.pattern()));
+        alternatives[i] = group;
+        groups[i] = group + 1;
+        group += 1 + binding.paramNames.length;
+      }
+      prefix = common;
+      Pattern combined = Pattern.compile(regex.toString());
+      matchers = ThreadLocal.withInitial(() -> combined.matcher(""));
+    }
+  }
+
+  /**
+   * Split the bindings into runs, consecutive bindings that can be combined are grouped in a single run.
+   */
+  static List<CombinedRegEx> combine(List<PatternBinding> bindings) {
+    List<CombinedRegEx> runs = new ArrayList<>();
+    List<PatternBinding> run = new ArrayList<>();
+    for (PatternBinding binding: bindings) {
+      if (binding.combinable) {
+        run.add(binding);
+      } else {
+        if (!run.isEmpty()) {
+          runs.add(new CombinedRegEx(run));
+          run.clear();
+        }
+        List<PatternBinding> single = new ArrayList<>();
+        single.add(binding);
+        runs.add(new CombinedRegEx(single));
+      }
+    }
+    if (!run.isEmpty()) {
+      runs.add(new CombinedRegEx(run));
+    }
+    return runs;
+  }
+
+  /**
+   * Whether the regular expression can be an alternative of a combined regular expression.
+   *
+   * @param groupCount the number of groups of the regular expression
+   */
+  static boolean isCombinable(Pattern pattern, int groupCount) {
+    if (pattern.flags() != 0 || NOT_COMBINABLE.matcher(pattern.pattern()).find()) {
+      return false;
+    }
+    try {
+      return Pattern.compile(wrap(pattern.pattern())).matcher("").groupCount() == groupCount + 1;
+    } catch (PatternSyntaxException e) {
+      return false;
+    }
+  }
+
+  private static String wrap(String regex) {
+    return "((?:" + regex + "))";
+  }
+
+  /**
+   * The literal text any match of the regular expression starts with, or an empty string when unknown.
+   */
+  static String literalPrefix(String regex) {
+    if (regex.indexOf('|') != -1) {
+      // The prefix may only apply to one of the alternatives
+      return "";
+    }
+    StringBuilder sb = new StringBuilder();
+    int len = regex.length();
+    int pos = 0;
+    while (pos < len) {
+      char c = regex.charAt(pos);
+      if (c == '\\') {
+        if (pos + 1 == len || Character.isLetterOrDigit(regex.charAt(pos + 1))) {
+          break;
+        }
+        c = regex.charAt(pos + 1);
+        pos += 2;
+      } else if (REGEX_METACHARS.indexOf(c) != -1) {
+        break;
+      } else {
+        pos++;
+      }
+      if (pos < len && "?*+{".indexOf(regex.charAt(pos)) != -1) {
+        // The character is quantified, it may not be there
+        break;
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  private static int commonPrefixLength(String s1, String s2) {
+    int max = Math.min(s1.length(), s2.length());
+    int i = 0;
+    while (i < max && s1.charAt(i) == s2.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return the lowest registration order of the bindings of this run
+   */
+  int minOrder() {
+    return minOrder;
+  }
+
+  /**
+   * Find the first binding of this run matching the whole path. When it was registered before {@code bound}, its
+   * params are added to the request.
+   *
+   * @return the binding or {@code null} when no binding registered before {@code bound} matches
+   */
+  PatternBinding route(HttpServerRequest request, String path, int bound, int[] captures) {
+    if (!path.startsWith(prefix)) {
+      return null;
+    }
+    if (matchers == null) {
+      PatternBinding binding = bindings[0];
+      if (binding.order < bound && binding.matchTokens(path, captures)) {
+        binding.addParams(request, path, captures);
+        return binding;
+      }
+      return null;
+    }
+    Matcher matcher = matchers.get().reset(path);
+    try {
+      if (!matcher.matches()) {
+        return null;
+      }
+      int index = 0;
+      if (bindings.length > 1) {
+        while (matcher.start(alternatives[index]) == -1) {
+          index++;
+        }
+      }
+      PatternBinding binding = bindings[index];
+      if (binding.order >= bound) {
+        return null;
+      }
+      binding.addParams(request, matcher, groups[index]);
+      return binding;
+    } finally {
+      // Do not retain the path
+      matcher.reset("");
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The bindings of a list indexed by the first segment of the paths they can match.<p>
+ * A binding whose {@link PatternBinding#segment segment} is known is only a candidate for the paths starting with
+ * that segment, the other bindings are candidates for every path. The candidates of a path are kept in list order,
+ * so the first matching candidate is the first matching binding of the list.<p>
+ * When the bindings are combined, the candidates of each segment are combined separately so that a path is only
+ * matched against the regular expressions of its candidates.<p>
+ * Instances of this class are immutable.<p>
+ */
+class DispatchTable {
+
+  private final Map<String, Candidates> segments = new HashMap<>();
+  private final Candidates wildcards;
+
+  DispatchTable(List<PatternBinding> bindings, boolean combined) {
+    Set<String> keys = new LinkedHashSet<>();
+    List<PatternBinding> others = new ArrayList<>();
+    for (PatternBinding binding: bindings) {
+      if (binding.segment != null) {
+        keys.add(binding.segment);
+      } else {
+        others.add(binding);
+      }
+    }
+    for (String key: keys) {
+      List<PatternBinding> candidates = new ArrayList<>();
+      for (PatternBinding binding: bindings) {
+        if (binding.segment == null || binding.segment.equals(key)) {
+          candidates.add(binding);
+        }
+      }
+      segments.put(key, new Candidates(candidates, combined));
+    }
+    wildcards = new Candidates(others, combined);
+  }
+
+  /**
+   * @return the bindings that can match the path
+   */
+  Candidates candidates(String path) {
+    if (segments.isEmpty() || path.isEmpty() || path.charAt(0) != '/') {
+      return wildcards;
+    }
+    int end = path.indexOf('/', 1);
+    Candidates candidates = segments.get(path.substring(1, end != -1 ? end : path.length()));
+    return candidates != null ? candidates : wildcards;
+  }
+
+  static class Candidates {
+
+    final List<PatternBinding> bindings;
+    // Null unless the bindings are combined
+    final List<CombinedRegEx> runs;
+
+    Candidates(List<PatternBinding> bindings, boolean combined) {
+      this.bindings = bindings;
+      this.runs = combined ? CombinedRegEx.combine(bindings) : null;
+    }
+  }
+}
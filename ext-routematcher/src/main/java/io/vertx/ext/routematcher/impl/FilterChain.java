@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.routematcher.FilterContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The filters of a binding, flattened in arrays.<p>
+ * The chains of all the bindings are built at once in an array indexed by the registration order of the bindings,
+ * bindings without filters have no chain and their handler is called directly. A filter registered with a pattern
+ * belongs to the chains of the bindings registered with the same pattern, a filter registered without pattern to the
+ * chains of all the bindings. Filters are kept in registration order.<p>
+ * Dispatching a request through a chain allocates a single {@link FilterContext}.<p>
+ */
+class FilterChain {
+
+  private final Handler<FilterContext>[] before;
+  private final Handler<FilterContext>[] after;
+
+  private FilterChain(Handler<FilterContext>[] before, Handler<FilterContext>[] after) {
+    this.before = before;
+    this.after = after;
+  }
+
+  /**
+   * @return the chains indexed by binding order, {@code null} for the bindings without filters
+   */
+  static FilterChain[] build(Collection<List<PatternBinding>> bindings, int bindingCount, List<Filter> before,
+                             List<Filter> after) {
+    FilterChain[] chains = new FilterChain[bindingCount];
+    for (List<PatternBinding> list: bindings) {
+      for (PatternBinding binding: list) {
+        Handler<FilterContext>[] beforeFilters = filters(before, binding);
+        Handler<FilterContext>[] afterFilters = filters(after, binding);
+        if (beforeFilters.length > 0 || afterFilters.length > 0) {
+          chains[binding.order] = new FilterChain(beforeFilters, afterFilters);
+        }
+      }
+    }
+    return chains;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Handler<FilterContext>[] filters(List<Filter> filters, PatternBinding binding) {
+    List<Handler<FilterContext>> matching = new ArrayList<>();
+    for (Filter filter: filters) {
+      if (filter.pattern == null || filter.pattern.equals(binding.source)) {
+        matching.add(filter.handler);
+      }
+    }
+    return matching.toArray(new Handler[matching.size()]);
+  }
+
+  void handle(HttpServerRequest request, Handler<HttpServerRequest> handler) {
+    new Context(request, handler).next();
+  }
+
+  static class Filter {
+
+    // Null for the filters of all the bindings
+    final String pattern;
+    final Handler<FilterContext> handler;
+
+    Filter(String pattern, Handler<FilterContext> handler) {
+      this.pattern = pattern;
+      this.handler = handler;
+    }
+  }
+
+  private class Context implements FilterContext {
+
+    private final HttpServerRequest request;
+    private final Handler<HttpServerRequest> handler;
+    // The before filters, the handler and then the after filters
+    private int index;
+
+    Context(HttpServerRequest request, Handler<HttpServerRequest> handler) {
+      this.request = request;
+      this.handler = handler;
+    }
+
+    @Override
+    public HttpServerRequest request() {
+      return request;
+    }
+
+    @Override
+    public void next() {
+      if (index < before.length) {
+        before[index++].handle(this);
+      } else if (index == before.length) {
+        index++;
+        handler.handle(request);
+        next();
+      } else if (index <= before.length + after.length) {
+        after[index++ - before.length - 1].handle(this);
+      }
+    }
+  }
+}
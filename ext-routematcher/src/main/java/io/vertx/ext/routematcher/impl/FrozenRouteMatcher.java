@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.routematcher.FilterContext;
+import io.vertx.ext.routematcher.RouteMatcher;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe route matcher that can be shared by several event loops.<p>
+ * Requests are dispatched without locking against an immutable {@link RouteMatcherImpl} snapshot. Changes are
+ * copy-on-write: they are applied to a copy of the current snapshot which then atomically replaces it, so requests
+ * being dispatched concurrently see either the old or the new routes. The compiled patterns and the bindings are
+ * shared between the snapshots. Adaptive ordering replaces the snapshot with one sharing everything but the reordered
+ * bindings lists and their dispatch tables, and only when the order changed.<p>
+ * The route matchers of hosts and header values are frozen as well, changing them afterwards has no effect.
+ */
+public class FrozenRouteMatcher implements RouteMatcher {
+
+  private volatile RouteMatcherImpl routes;
+
+  FrozenRouteMatcher(RouteMatcherImpl routes) {
+    RouteMatcherImpl snapshot = routes.copy();
+    snapshot.compile();
+    this.routes = snapshot;
+  }
+
+  @Override
+  public RouteMatcher accept(HttpServerRequest request) {
+    RouteMatcherImpl snapshot = routes;
+    snapshot.dispatch(request);
+    if (snapshot.isReorderDue()) {
+      RouteMatcherImpl reordered = snapshot.reordered();
+      if (reordered != null) {
+        replace(snapshot, reordered);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public RouteMatcher matchMethod(HttpMethod method, String pattern, Handler<HttpServerRequest> handler) {
+    update(snapshot -> snapshot.matchMethod(method, pattern, handler));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher all(String pattern, Handler<HttpServerRequest> handler) {
+    update(snapshot -> snapshot.all(pattern, handler));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher matchMethodWithRegEx(HttpMethod method, String pattern, Handler<HttpServerRequest> handler) {
+    update(snapshot -> snapshot.matchMethodWithRegEx(method, pattern, handler));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher allWithRegEx(String regex, Handler<HttpServerRequest> handler) {
+    update(snapshot -> snapshot.allWithRegEx(regex, handler));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher host(String host, RouteMatcher routeMatcher) {
+    RouteMatcher frozen = routeMatcher.freeze();
+    update(snapshot -> snapshot.host(host, frozen));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher header(String name, String value, RouteMatcher routeMatcher) {
+    RouteMatcher frozen = routeMatcher.freeze();
+    update(snapshot -> snapshot.header(name, value, frozen));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher before(Handler<FilterContext> filter) {
+    update(snapshot -> snapshot.before(filter));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher before(String pattern, Handler<FilterContext> filter) {
+    update(snapshot -> snapshot.before(pattern, filter));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher after(Handler<FilterContext> filter) {
+    update(snapshot -> snapshot.after(filter));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher after(String pattern, Handler<FilterContext> filter) {
+    update(snapshot -> snapshot.after(pattern, filter));
+    return this;
+  }
+
+  @Override
+  public RouteMatcher noMatch(Handler<HttpServerRequest> handler) {
+    update(snapshot -> snapshot.noMatch(handler));
+    return this;
+  }
+
+  @Override
+  public Map<String, JsonObject> metrics() {
+    return routes.metrics();
+  }
+
+  @Override
+  public Map<String, String> shadowedRoutes() {
+    return routes.shadowedRoutes();
+  }
+
+  @Override
+  public RouteMatcher freeze() {
+    return this;
+  }
+
+  private synchronized void replace(RouteMatcherImpl snapshot, RouteMatcherImpl reordered) {
+    // The routes changed in the meantime, they will be reordered later
+    if (routes == snapshot) {
+      routes = reordered;
+    }
+  }
+
+  private synchronized void update(Consumer<RouteMatcherImpl> change) {
+    RouteMatcherImpl snapshot = routes.copy();
+    change.accept(snapshot);
+    snapshot.compile();
+    routes = snapshot;
+  }
+}
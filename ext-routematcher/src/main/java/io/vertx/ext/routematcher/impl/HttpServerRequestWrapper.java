@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerFileUpload;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.security.cert.X509Certificate;
+
+/**
+ * A request delegating to another request, whose {@link #response()} is the given response. The handler wrappers
+ * extend it to observe what a handler does with the request.<p>
+ * Fluent methods return the wrapper rather than the request it delegates to.<p>
+ */
+class HttpServerRequestWrapper implements HttpServerRequest {
+
+  final HttpServerRequest delegate;
+  private final HttpServerResponse response;
+
+  HttpServerRequestWrapper(HttpServerRequest delegate, HttpServerResponse response) {
+    this.delegate = delegate;
+    this.response = response;
+  }
+
+  @Override
+  public HttpServerRequest exceptionHandler(Handler<Throwable> handler) {
+    delegate.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerRequest handler(Handler<Buffer> handler) {
+    delegate.handler(handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerRequest pause() {
+    delegate.pause();
+    return this;
+  }
+
+  @Override
+  public HttpServerRequest resume() {
+    delegate.resume();
+    return this;
+  }
+
+  @Override
+  public HttpServerRequest endHandler(Handler<Void> handler) {
+    delegate.endHandler(handler);
+    return this;
+  }
+
+  @Override
+  public HttpVersion version() {
+    return delegate.version();
+  }
+
+  @Override
+  public HttpMethod method() {
+    return delegate.method();
+  }
+
+  @Override
+  public String uri() {
+    return delegate.uri();
+  }
+
+  @Override
+  public String path() {
+    return delegate.path();
+  }
+
+  @Override
+  public String query() {
+    return delegate.query();
+  }
+
+  @Override
+  public HttpServerResponse response() {
+    return response;
+  }
+
+  @Override
+  public MultiMap headers() {
+    return delegate.headers();
+  }
+
+  @Override
+  public MultiMap params() {
+    return delegate.params();
+  }
+
+  @Override
+  public SocketAddress remoteAddress() {
+    return delegate.remoteAddress();
+  }
+
+  @Override
+  public SocketAddress localAddress() {
+    return delegate.localAddress();
+  }
+
+  @Override
+  public X509Certificate[] peerCertificateChain() throws SSLPeerUnverifiedException {
+    return delegate.peerCertificateChain();
+  }
+
+  @Override
+  public String absoluteURI() {
+    return delegate.absoluteURI();
+  }
+
+  @Override
+  public HttpServerRequest bodyHandler(Handler<Buffer> handler) {
+    delegate.bodyHandler(handler);
+    return this;
+  }
+
+  @Override
+  public NetSocket netSocket() {
+    return delegate.netSocket();
+  }
+
+  @Override
+  public HttpServerRequest setExpectMultipart(boolean expect) {
+    delegate.setExpectMultipart(expect);
+    return this;
+  }
+
+  @Override
+  public boolean isExpectMultipart() {
+    return delegate.isExpectMultipart();
+  }
+
+  @Override
+  public HttpServerRequest uploadHandler(Handler<HttpServerFileUpload> handler) {
+    delegate.uploadHandler(handler);
+    return this;
+  }
+
+  @Override
+  public MultiMap formAttributes() {
+    return delegate.formAttributes();
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+/**
+ * A response delegating to another response. The handler wrappers extend it to observe what a handler does with the
+ * response.<p>
+ * Fluent methods return the wrapper rather than the response it delegates to.<p>
+ */
+class HttpServerResponseWrapper implements HttpServerResponse {
+
+  final HttpServerResponse delegate;
+
+  HttpServerResponseWrapper(HttpServerResponse delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public HttpServerResponse exceptionHandler(Handler<Throwable> handler) {
+    delegate.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse write(Buffer data) {
+    delegate.write(data);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse setWriteQueueMaxSize(int maxSize) {
+    delegate.setWriteQueueMaxSize(maxSize);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return delegate.writeQueueFull();
+  }
+
+  @Override
+  public HttpServerResponse drainHandler(Handler<Void> handler) {
+    delegate.drainHandler(handler);
+    return this;
+  }
+
+  @Override
+  public int getStatusCode() {
+    return delegate.getStatusCode();
+  }
+
+  @Override
+  public HttpServerResponse setStatusCode(int statusCode) {
+    delegate.setStatusCode(statusCode);
+    return this;
+  }
+
+  @Override
+  public String getStatusMessage() {
+    return delegate.getStatusMessage();
+  }
+
+  @Override
+  public HttpServerResponse setStatusMessage(String statusMessage) {
+    delegate.setStatusMessage(statusMessage);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse setChunked(boolean chunked) {
+    delegate.setChunked(chunked);
+    return this;
+  }
+
+  @Override
+  public boolean isChunked() {
+    return delegate.isChunked();
+  }
+
+  @Override
+  public MultiMap headers() {
+    return delegate.headers();
+  }
+
+  @Override
+  public HttpServerResponse putHeader(String name, String value) {
+    delegate.putHeader(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putHeader(CharSequence name, CharSequence value) {
+    delegate.putHeader(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putHeader(String name, Iterable<String> values) {
+    delegate.putHeader(name, values);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putHeader(CharSequence name, Iterable<CharSequence> values) {
+    delegate.putHeader(name, values);
+    return this;
+  }
+
+  @Override
+  public MultiMap trailers() {
+    return delegate.trailers();
+  }
+
+  @Override
+  public HttpServerResponse putTrailer(String name, String value) {
+    delegate.putTrailer(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putTrailer(CharSequence name, CharSequence value) {
+    delegate.putTrailer(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putTrailer(String name, Iterable<String> values) {
+    delegate.putTrailer(name, values);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse putTrailer(CharSequence name, Iterable<CharSequence> value) {
+    delegate.putTrailer(name, value);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse closeHandler(Handler<Void> handler) {
+    delegate.closeHandler(handler);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse write(String chunk, String enc) {
+    delegate.write(chunk, enc);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse write(String chunk) {
+    delegate.write(chunk);
+    return this;
+  }
+
+  @Override
+  public void end(String chunk) {
+    delegate.end(chunk);
+  }
+
+  @Override
+  public void end(String chunk, String enc) {
+    delegate.end(chunk, enc);
+  }
+
+  @Override
+  public void end(Buffer chunk) {
+    delegate.end(chunk);
+  }
+
+  @Override
+  public void end() {
+    delegate.end();
+  }
+
+  @Override
+  public HttpServerResponse sendFile(String filename) {
+    delegate.sendFile(filename);
+    return this;
+  }
+
+  @Override
+  public HttpServerResponse sendFile(String filename, Handler<AsyncResult<Void>> resultHandler) {
+    delegate.sendFile(filename, resultHandler);
+    return this;
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public boolean headWritten() {
+    return delegate.headWritten();
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Normalizes request paths before they are matched.<p>
+ * Percent-encoded characters are decoded as UTF-8, except {@code /} and {@code %} which are kept encoded as
+ * {@code %2F} and {@code %25} so that the segments of the normalized path are those of the request and normalizing
+ * a normalized path does not change it. Empty and
+ * {@code .} segments are then removed, {@code ..} segments remove the previous segment and there is no trailing
+ * slash. Paths not starting with {@code /} are left unchanged.<p>
+ * Most paths are already normalized, this is checked with a single scan and such paths are returned as is. The
+ * other ones are remembered in a per thread LRU cache so that a hot path is only normalized once per thread.<p>
+ */
+class PathNormalizer {
+
+  private final ThreadLocal<Map<String, String>> caches;
+
+  PathNormalizer(int cacheSize) {
+    if (cacheSize > 0) {
+      caches = ThreadLocal.withInitial(() -> new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+          return size() > cacheSize;
+        }
+      });
+    } else {
+      caches = null;
+    }
+  }
+
+  String normalize(String path) {
+    if (isNormalized(path)) {
+      return path;
+    }
+    if (caches == null) {
+      return doNormalize(path);
+    }
+    Map<String, String> cache = caches.get();
+    String normalized = cache.get(path);
+    if (normalized == null) {
+      normalized = doNormalize(path);
+      cache.put(path, normalized);
+    }
+    return normalized;
+  }
+
+  static boolean isNormalized(String path) {
+    int len = path.length();
+    if (len == 0 || path.charAt(0) != '/') {
+      return true;
+    }
+    for (int i = 0; i < len; i++) {
+      char c = path.charAt(i);
+      if (c == '%') {
+        return false;
+      }
+      if (c == '/') {
+        if (i == len - 1) {
+          // Only the root path ends with a slash
+          return len == 1;
+        }
+        char next = path.charAt(i + 1);
+        if (next == '/' || (next == '.' && isDotSegment(path, i + 1))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDotSegment(String path, int pos) {
+    int len = path.length();
+    int end = pos + 1;
+    if (end < len && path.charAt(end) == '.') {
+      end++;
+    }
+    return end == len || path.charAt(end) == '/';
+  }
+
+  static String doNormalize(String path) {
+    int len = path.length();
+    if (len == 0 || path.charAt(0) != '/') {
+      return path;
+    }
+    List<String> segments = new ArrayList<>();
+    int pos = 1;
+    while (pos <= len) {
+      int end = path.indexOf('/', pos);
+      if (end == -1) {
+        end = len;
+      }
+      String segment = decode(path, pos, end);
+      if (segment.equals("..")) {
+        if (!segments.isEmpty()) {
+          segments.remove(segments.size() - 1);
+        }
+      } else if (!segment.isEmpty() && !segment.equals(".")) {
+        segments.add(segment);
+      }
+      pos = end + 1;
+    }
+    if (segments.isEmpty()) {
+      return "/";
+    }
+    StringBuilder sb = new StringBuilder(len);
+    for (String segment: segments) {
+      sb.append('/').append(segment);
+    }
+    return sb.toString();
+  }
+
+  private static String decode(String path, int start, int end) {
+    int percent = path.indexOf('%', start);
+    if (percent == -1 || percent >= end) {
+      return path.substring(start, end);
+    }
+    StringBuilder sb = new StringBuilder(end - start);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int pos = start;
+    while (pos < end) {
+      char c = path.charAt(pos);
+      int value = c == '%' ? hexValue(path, pos + 1, end) : -1;
+      if (value == -1) {
+        flush(bytes, sb);
+        // A percent sign not followed by two hex digits stands for itself
+        sb.append(c == '%' ? "%25" : c);
+        pos++;
+      } else {
+        if (value == '/' || value == '%') {
+          flush(bytes, sb);
+          sb.append(value == '/' ? "%2F" : "%25");
+        } else {
+          bytes.write(value);
+        }
+        pos += 3;
+      }
+    }
+    flush(bytes, sb);
+    return sb.toString();
+  }
+
+  /**
+   * @return the value of the two hex digits at {@code pos} or -1 when there are no such digits before {@code end}
+   */
+  private static int hexValue(String path, int pos, int end) {
+    if (pos + 2 > end) {
+      return -1;
+    }
+    int high = hexDigit(path.charAt(pos));
+    int low = hexDigit(path.charAt(pos + 1));
+    return high == -1 || low == -1 ? -1 : (high << 4) + low;
+  }
+
+  private static int hexDigit(char c) {
+    return c < 128 ? Character.digit(c, 16) : -1;
+  }
+
+  private static void flush(ByteArrayOutputStream bytes, StringBuilder sb) {
+    if (bytes.size() > 0) {
+      sb.append(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+      bytes.reset();
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A single registered route.<p>
+ * The {@code order} is the position of the binding in registration order, it is used to preserve the first
+ * registered wins semantic when bindings are looked up from different indexes.<p>
+ * A binding is either a simple pattern, described by its {@code tokens} and matched without any regular expression,
+ * or a compiled {@code pattern}. In both cases {@code paramNames} gives, by position, the names under which the
+ * captured values are added to the request params.<p>
+ * The {@code prefix} is the literal text any path matched by the binding starts with and the {@code segment} is the
+ * first segment of any such path, or {@code null} when it is unknown. Two bindings whose segments differ never match
+ * the same path.<p>
+ * The {@code metrics} are {@code null} unless metrics are enabled, bindings registered for the same method and
+ * pattern share the same metrics.
+ */
+class PatternBinding {
+
+  private static final String REGEX_METACHARS = "\\^$.|?*+()[]{}";
+  private static final String[] PARAM_NAMES = new String[16];
+
+  static {
+    for (int i = 0; i < PARAM_NAMES.length; i++) {
+      PARAM_NAMES[i] = ("param" + i).intern();
+    }
+  }
+
+  final int order;
+  // The pattern or regular expression the binding was registered with
+  final String source;
+  final Pattern pattern;
+  // Literal tokens and param tokens (null) of a simple pattern
+  final String[] tokens;
+  final String[] paramNames;
+  // Whether the pattern uses named groups, the values are then looked up by name rather than by position
+  final boolean namedGroups;
+  final Handler<HttpServerRequest> handler;
+  final RouteMetrics metrics;
+  final String prefix;
+  final String segment;
+  // Whether the pattern can be matched as part of a CombinedRegEx
+  final boolean combinable;
+
+  private PatternBinding(int order, String source, Pattern pattern, String[] tokens, String[] paramNames,
+                         boolean namedGroups, Handler<HttpServerRequest> handler, RouteMetrics metrics) {
+    this.order = order;
+    this.source = source;
+    this.pattern = pattern;
+    this.tokens = tokens;
+    this.paramNames = paramNames;
+    this.namedGroups = namedGroups;
+    this.handler = handler;
+    this.metrics = metrics;
+    if (tokens != null) {
+      prefix = tokens.length > 0 && tokens[0] != null ? tokens[0] : "";
+    } else {
+      prefix = CombinedRegEx.literalPrefix(pattern.pattern());
+    }
+    int end = prefix.startsWith("/") ? prefix.indexOf('/', 1) : -1;
+    if (end != -1) {
+      segment = prefix.substring(1, end);
+    } else if (prefix.startsWith("/") && tokens != null && tokens.length == 1) {
+      // The whole path is literal
+      segment = prefix.substring(1);
+    } else {
+      segment = null;
+    }
+    combinable = pattern != null && !namedGroups && CombinedRegEx.isCombinable(pattern, paramNames.length);
+  }
+
+  static PatternBinding simple(int order, String source, String[] tokens, String[] paramNames,
+                               Handler<HttpServerRequest> handler, RouteMetrics metrics) {
+    return new PatternBinding(order, source, null, tokens, paramNames, false, handler, metrics);
+  }
+
+  static PatternBinding named(int order, String source, Pattern pattern, String[] paramNames,
+                              Handler<HttpServerRequest> handler, RouteMetrics metrics) {
+    return new PatternBinding(order, source, pattern, null, paramNames, true, handler, metrics);
+  }
+
+  static PatternBinding regex(int order, String source, Pattern pattern, Handler<HttpServerRequest> handler,
+                              RouteMetrics metrics) {
+    int groupCount = pattern.matcher("").groupCount();
+    String[] paramNames = new String[groupCount];
+    for (int i = 0; i < groupCount; i++) {
+      paramNames[i] = i < PARAM_NAMES.length ? PARAM_NAMES[i] : "param" + i;
+    }
+    return new PatternBinding(order, source, pattern, null, paramNames, false, handler, metrics);
+  }
+
+  /**
+   * Split a simple pattern into literal tokens and param tokens, params are represented by {@code null}.
+   *
+   * @return the tokens or {@code null} when the pattern is not a simple pattern
+   */
+  static String[] tokenize(String pattern) {
+    List<String> tokens = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+    int len = pattern.length();
+    int pos = 0;
+    while (pos < len) {
+      char c = pattern.charAt(pos);
+      if (c == ':' && pos + 1 < len && isTokenStart(pattern.charAt(pos + 1))) {
+        if (pos > 0 && pattern.charAt(pos - 1) != '/') {
+          return null;
+        }
+        int end = pos + 2;
+        while (end < len && isTokenPart(pattern.charAt(end))) {
+          end++;
+        }
+        if (end < len && pattern.charAt(end) != '/') {
+          return null;
+        }
+        if (literal.length() > 0) {
+          tokens.add(literal.toString());
+          literal.setLength(0);
+        }
+        tokens.add(null);
+        pos = end;
+      } else {
+        if (REGEX_METACHARS.indexOf(c) != -1) {
+          return null;
+        }
+        literal.append(c);
+        pos++;
+      }
+    }
+    if (literal.length() > 0) {
+      tokens.add(literal.toString());
+    }
+    return tokens.toArray(new String[tokens.size()]);
+  }
+
+  private static boolean isTokenStart(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+  }
+
+  private static boolean isTokenPart(char c) {
+    return isTokenStart(c) || (c >= '0' && c <= '9') || c == '_';
+  }
+
+  /**
+   * Match the whole path against the tokens of a simple pattern, the start and end offsets of each param value
+   * are written in {@code captures}.
+   */
+  boolean matchTokens(String path, int[] captures) {
+    int pos = 0;
+    int param = 0;
+    int len = path.length();
+    for (String token: tokens) {
+      if (token == null) {
+        int end = path.indexOf('/', pos);
+        if (end == -1) {
+          end = len;
+        }
+        if (end == pos) {
+          return false;
+        }
+        captures[param * 2] = pos;
+        captures[param * 2 + 1] = end;
+        param++;
+        pos = end;
+      } else {
+        if (!path.startsWith(token, pos)) {
+          return false;
+        }
+        pos += token.length();
+      }
+    }
+    return pos == len;
+  }
+
+  /**
+   * @return whether the binding matches the whole path, without adding any param to a request
+   */
+  boolean matches(String path, int[] captures) {
+    return tokens != null ? matchTokens(path, captures) : pattern.matcher(path).matches();
+  }
+
+  /**
+   * Add the param values found by {@link #matchTokens(String, int[])} to the request params.
+   */
+  void addParams(HttpServerRequest request, String path, int[] captures) {
+    for (int i = 0; i < paramNames.length; i++) {
+      request.params().add(paramNames[i], path.substring(captures[i * 2], captures[i * 2 + 1]));
+    }
+  }
+
+  /**
+   * Add the groups of a successful match to the request params, {@code firstGroup} is the group of the first param
+   * in the matcher.
+   */
+  void addParams(HttpServerRequest request, Matcher m, int firstGroup) {
+    for (int i = 0; i < paramNames.length; i++) {
+      String value = namedGroups ? m.group(paramNames[i]) : m.group(firstGroup + i);
+      // Optional groups that did not participate in the match have no value
+      if (value != null) {
+        request.params().add(paramNames[i], value);
+      }
+    }
+  }
+}
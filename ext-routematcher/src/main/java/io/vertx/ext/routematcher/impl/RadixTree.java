@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import java.util.Arrays;
+
+/**
+ * A compressed radix tree indexing simple patterns.<p>
+ * Literal runs of a pattern are stored as shared edge prefixes and each {@code :param} segment is stored as a
+ * dedicated param edge that consumes one non empty path segment, so a lookup costs a walk over the path rather than
+ * one regular expression evaluation per binding.<p>
+ * Only patterns whose literal parts contain no regular expression metacharacters and whose params span whole
+ * segments can be indexed, see {@link PatternBinding#tokenize(String)}. When several bindings match a path, the one
+ * with the lowest registration order is returned.<p>
+ * Lookups can be performed concurrently, however adding bindings is not thread-safe, a tree shared between threads
+ * must be {@link #copy() copied} before being modified.<p>
+ */
+class RadixTree {
+
+  // Lookup state, kept per thread to not allocate on each lookup
+  private static final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+  private final Node root;
+
+  RadixTree() {
+    root = new Node("");
+  }
+
+  private RadixTree(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * @return a deep copy of this tree that can be modified without affecting this tree
+   */
+  RadixTree copy() {
+    return new RadixTree(root.copy());
+  }
+
+  /**
+   * Add a binding for the tokens returned by {@link PatternBinding#tokenize(String)}. If a binding is already
+   * registered for the same tokens, the earlier one is kept.
+   */
+  void add(String[] tokens, PatternBinding binding) {
+    Node node = root;
+    node.minOrder = Math.min(node.minOrder, binding.order);
+    for (String token: tokens) {
+      if (token == null) {
+        if (node.paramChild == null) {
+          node.paramChild = new Node("");
+        }
+        node = node.paramChild;
+      } else {
+        node = addLiteral(node, token, binding.order);
+      }
+      node.minOrder = Math.min(node.minOrder, binding.order);
+    }
+    if (node.binding == null) {
+      node.binding = binding;
+    }
+  }
+
+  private Node addLiteral(Node node, String literal, int order) {
+    while (true) {
+      Node child = node.literalChild(literal.charAt(0));
+      if (child == null) {
+        child = new Node(literal);
+        node.addChild(child);
+        return child;
+      }
+      int common = commonPrefixLength(child.prefix, literal);
+      if (common < child.prefix.length()) {
+        // Split the edge, the new intermediate node keeps the shared part of the prefix
+        Node split = new Node(child.prefix.substring(0, common));
+        split.minOrder = child.minOrder;
+        child.prefix = child.prefix.substring(common);
+        split.addChild(child);
+        node.replaceChild(split);
+        child = split;
+      }
+      if (common == literal.length()) {
+        return child;
+      }
+      child.minOrder = Math.min(child.minOrder, order);
+      node = child;
+      literal = literal.substring(common);
+    }
+  }
+
+  private static int commonPrefixLength(String s1, String s2) {
+    int max = Math.min(s1.length(), s2.length());
+    int i = 0;
+    while (i < max && s1.charAt(i) == s2.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Find the first registered binding matching the whole path, the start and end offsets of its param values are
+   * written in {@code captures} which must be large enough for the params of any binding of the tree.
+   *
+   * @return the binding or {@code null} when no indexed binding matches
+   */
+  PatternBinding lookup(String path, int[] captures) {
+    Search search = searches.get();
+    search.path = path;
+    search.captures = captures;
+    try {
+      search.find(root, 0, 0);
+      return search.best;
+    } finally {
+      search.path = null;
+      search.captures = null;
+      search.best = null;
+    }
+  }
+
+  private static class Search {
+
+    String path;
+    int[] captures;
+    int[] current = new int[8];
+    PatternBinding best;
+
+    void find(Node node, int pos, int depth) {
+      if (best != null && node.minOrder >= best.order) {
+        // Nothing in this subtree was registered before the current best match
+        return;
+      }
+      int len = path.length();
+      if (pos == len) {
+        if (node.binding != null && (best == null || node.binding.order < best.order)) {
+          best = node.binding;
+          System.arraycopy(current, 0, captures, 0, depth * 2);
+        }
+        return;
+      }
+      Node child = node.literalChild(path.charAt(pos));
+      if (child != null && path.startsWith(child.prefix, pos)) {
+        find(child, pos + child.prefix.length(), depth);
+      }
+      if (node.paramChild != null) {
+        int end = path.indexOf('/', pos);
+        if (end == -1) {
+          end = len;
+        }
+        if (end > pos) {
+          if (current.length < depth * 2 + 2) {
+            current = Arrays.copyOf(current, current.length * 2);
+          }
+          current[depth * 2] = pos;
+          current[depth * 2 + 1] = end;
+          find(node.paramChild, end, depth + 1);
+        }
+      }
+    }
+  }
+
+  private static class Node {
+
+    String prefix;
+    char[] indices = new char[0];
+    Node[] children = new Node[0];
+    Node paramChild;
+    PatternBinding binding;
+    // The lowest registration order of the bindings in this subtree, used to prune lookups
+    int minOrder = Integer.MAX_VALUE;
+
+    Node(String prefix) {
+      this.prefix = prefix;
+    }
+
+    Node copy() {
+      Node copy = new Node(prefix);
+      copy.indices = indices.clone();
+      copy.children = new Node[children.length];
+      for (int i = 0; i < children.length; i++) {
+        copy.children[i] = children[i].copy();
+      }
+      copy.paramChild = paramChild != null ? paramChild.copy() : null;
+      copy.binding = binding;
+      copy.minOrder = minOrder;
+      return copy;
+    }
+
+    Node literalChild(char c) {
+      for (int i = 0; i < indices.length; i++) {
+        if (indices[i] == c) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    void addChild(Node child) {
+      indices = Arrays.copyOf(indices, indices.length + 1);
+      children = Arrays.copyOf(children, children.length + 1);
+      indices[indices.length - 1] = child.prefix.charAt(0);
+      children[children.length - 1] = child;
+    }
+
+    void replaceChild(Node child) {
+      char c = child.prefix.charAt(0);
+      for (int i = 0; i < indices.length; i++) {
+        if (indices[i] == c) {
+          children[i] = child;
+          return;
+        }
+      }
+      throw new IllegalStateException("No child for " + c);
+    }
+  }
+}
@@ -0,0 +1,562 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.routematcher.ResponseCache;
+import io.vertx.ext.routematcher.ResponseCacheOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * The responses are kept in a {@link ConcurrentHashMap} so that lookups from different event loops do not contend,
+ * bounded by the number of responses and by their size. When a response is added past a bound, the least recently
+ * used responses are evicted down to 90% of the bounds so that eviction, which sorts the responses, stays rare.<p>
+ * The key of a response also holds the values of the request headers named by its {@code Vary} header. Those names
+ * are remembered by key without them, so that the next requests look the right response up.<p>
+ * On a miss, the request becomes the leader of its key: the handler is called with a request whose response copies
+ * what is written, and the other requests with the same key are paused and queued until the leader response ends.
+ * They are then served from the cached response when it does not vary on headers they differ in, or passed to the
+ * handler otherwise, each on its own context.<p>
+ */
+public class ResponseCacheImpl implements ResponseCache {
+
+  private static final String[] NO_VARY = new String[0];
+  // The headers of a single response or connection, they are not replayed from the cache
+  private static final Set<String> NOT_STORED = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+  static {
+    NOT_STORED.addAll(Arrays.asList("Content-Length", "Transfer-Encoding", "Date", "Connection", "Keep-Alive",
+      "Proxy-Authenticate", "Trailer", "Upgrade"));
+  }
+
+  private final Vertx vertx;
+  private final int maxEntries;
+  private final long maxSize;
+  private final long ttl;
+  private final String[] keyParams;
+  private final String[] keyHeaders;
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+  // The names of the headers the responses vary on, by key without them
+  private final ConcurrentMap<String, String[]> varies = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Flight> pending = new ConcurrentHashMap<>();
+  private final AtomicLong size = new AtomicLong();
+  private final AtomicInteger handlerCount = new AtomicInteger();
+
+  public ResponseCacheImpl(Vertx vertx, ResponseCacheOptions options) {
+    this.vertx = vertx;
+    this.maxEntries = options.getMaxEntries();
+    this.maxSize = options.getMaxSize();
+    this.ttl = options.getTtl();
+    this.keyParams = options.getKeyParams().toArray(new String[options.getKeyParams().size()]);
+    this.keyHeaders = options.getKeyHeaders().toArray(new String[options.getKeyHeaders().size()]);
+  }
+
+  @Override
+  public Handler<HttpServerRequest> cache(Handler<HttpServerRequest> handler) {
+    // Responses of different handlers are kept apart, even for the same path
+    int id = handlerCount.getAndIncrement();
+    return request -> handle(id, handler, request);
+  }
+
+  @Override
+  public void clear() {
+    entries.forEach(this::remove);
+    varies.clear();
+  }
+
+  private void handle(int id, Handler<HttpServerRequest> handler, HttpServerRequest request) {
+    if (request.method() != HttpMethod.GET || request.headers().contains("Authorization")) {
+      handler.handle(request);
+      return;
+    }
+    String base = key(id, request);
+    while (true) {
+      String[] vary = varies.getOrDefault(base, NO_VARY);
+      String key = vary.length == 0 ? base : base + varyKey(vary, request);
+      Entry entry = lookup(key);
+      if (entry != null) {
+        serve(entry, request);
+        return;
+      }
+      Flight flight = new Flight();
+      Flight leader = pending.putIfAbsent(key, flight);
+      if (leader == null) {
+        Capture capture = new Capture(base, key, vary, flight, request);
+        try {
+          handler.handle(capture.request);
+        } catch (RuntimeException | Error e) {
+          capture.complete(null);
+          throw e;
+        }
+        return;
+      }
+      if (leader.add(new Waiter(request, handler, vertx.context()))) {
+        return;
+      }
+      // The leader response ended in the meantime, look it up again
+    }
+  }
+
+  private String key(int id, HttpServerRequest request) {
+    StringBuilder sb = new StringBuilder().append(id).append(' ');
+    if (keyParams.length == 0) {
+      sb.append(request.uri());
+    } else {
+      // Only the key params of the query select the response
+      sb.append(request.path());
+      MultiMap params = request.params();
+      for (String name: keyParams) {
+        sb.append('\0').append(params.getAll(name));
+      }
+    }
+    for (String name: keyHeaders) {
+      sb.append('\0').append(request.headers().getAll(name));
+    }
+    return sb.toString();
+  }
+
+  private static String varyKey(String[] vary, HttpServerRequest request) {
+    StringBuilder sb = new StringBuilder();
+    for (String name: vary) {
+      sb.append('\0').append(name).append('=').append(request.headers().getAll(name));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the sorted lower case names in the {@code Vary} header of the response, or null when it varies on
+   * anything
+   */
+  private static String[] vary(HttpServerResponse response) {
+    List<String> values = response.headers().getAll("Vary");
+    if (values.isEmpty()) {
+      return NO_VARY;
+    }
+    TreeSet<String> names = new TreeSet<>();
+    for (String value: values) {
+      for (String name: value.split(",")) {
+        name = name.trim().toLowerCase();
+        if (name.equals("*")) {
+          return null;
+        }
+        if (!name.isEmpty()) {
+          names.add(name);
+        }
+      }
+    }
+    return names.toArray(new String[names.size()]);
+  }
+
+  private Entry lookup(String key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    if (entry.expires <= now) {
+      remove(key, entry);
+      return null;
+    }
+    entry.accessed = now;
+    return entry;
+  }
+
+  private void remove(String key, Entry entry) {
+    if (entries.remove(key, entry)) {
+      size.addAndGet(-entry.size);
+      if (entry.vary.length > 0) {
+        // Forget the headers too, the next response learns them again
+        varies.remove(entry.base, entry.vary);
+      }
+    }
+  }
+
+  private void complete(String key, Flight flight, Entry entry) {
+    if (entry != null && entry.size <= maxSize) {
+      if (entry.vary.length > 0) {
+        varies.put(entry.base, entry.vary);
+      } else if (!entry.key.equals(key)) {
+        varies.remove(entry.base);
+      }
+      Entry previous = entries.put(entry.key, entry);
+      if (previous != null) {
+        size.addAndGet(-previous.size);
+      }
+      if (size.addAndGet(entry.size) > maxSize || entries.size() > maxEntries) {
+        evict();
+      }
+    }
+    pending.remove(key, flight);
+    for (Waiter waiter: flight.complete()) {
+      // A response varying on headers is only served to the waiters with the same values
+      boolean hit = entry != null &&
+        (entry.key.equals(key) || entry.key.equals(entry.base + varyKey(entry.vary, waiter.request)));
+      waiter.context.runOnContext(v -> {
+        try {
+          if (hit) {
+            serve(entry, waiter.request);
+          } else {
+            waiter.handler.handle(waiter.request);
+          }
+        } finally {
+          waiter.request.resume();
+        }
+      });
+    }
+  }
+
+  private synchronized void evict() {
+    if (size.get() <= maxSize && entries.size() <= maxEntries) {
+      // Evicted by another thread already
+      return;
+    }
+    List<Map.Entry<String, Entry>> lru = new ArrayList<>(entries.entrySet());
+    lru.sort((e1, e2) -> Long.compare(e1.getValue().accessed, e2.getValue().accessed));
+    long targetSize = maxSize - maxSize / 10;
+    int targetEntries = maxEntries - maxEntries / 10;
+    int count = lru.size();
+    for (Map.Entry<String, Entry> e: lru) {
+      if (count <= targetEntries && size.get() <= targetSize) {
+        break;
+      }
+      remove(e.getKey(), e.getValue());
+      count--;
+    }
+  }
+
+  private static void serve(Entry entry, HttpServerRequest request) {
+    HttpServerResponse response = request.response();
+    String ifNoneMatch = request.headers().get("If-None-Match");
+    if (ifNoneMatch != null && matches(ifNoneMatch, entry.etag)) {
+      response.setStatusCode(304);
+      response.putHeader("ETag", entry.etag);
+      response.end();
+      return;
+    }
+    response.setStatusCode(entry.statusCode);
+    MultiMap headers = response.headers();
+    for (String[] header: entry.headers) {
+      headers.add(header[0], header[1]);
+    }
+    response.end(entry.body);
+  }
+
+  private static boolean matches(String ifNoneMatch, String etag) {
+    etag = weakless(etag);
+    for (String tag: ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.equals("*") || weakless(tag).equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String weakless(String etag) {
+    return etag.startsWith("W/") ? etag.substring(2) : etag;
+  }
+
+  private static String etag(Buffer body) {
+    CRC32 crc = new CRC32();
+    crc.update(body.getBytes());
+    return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length()) + "\"";
+  }
+
+  private static boolean isCacheable(HttpServerResponse response) {
+    if (response.getStatusCode() != 200 || response.headers().contains("Set-Cookie")) {
+      return false;
+    }
+    String cacheControl = response.headers().get("Cache-Control");
+    if (cacheControl != null) {
+      cacheControl = cacheControl.toLowerCase();
+      return !cacheControl.contains("no-store") && !cacheControl.contains("private") &&
+        !cacheControl.contains("no-cache");
+    }
+    return true;
+  }
+
+  private static class Entry {
+
+    final String base;
+    final String key;
+    final String[] vary;
+    final int statusCode;
+    final List<String[]> headers;
+    final Buffer body;
+    final String etag;
+    final long expires;
+    final long size;
+    volatile long accessed = System.currentTimeMillis();
+
+    Entry(String base, String key, String[] vary, int statusCode, List<String[]> headers, Buffer body, String etag,
+          long expires, long size) {
+      this.base = base;
+      this.key = key;
+      this.vary = vary;
+      this.statusCode = statusCode;
+      this.headers = headers;
+      this.body = body;
+      this.etag = etag;
+      this.expires = expires;
+      this.size = size;
+    }
+  }
+
+  private static class Waiter {
+
+    final HttpServerRequest request;
+    final Handler<HttpServerRequest> handler;
+    final Context context;
+
+    Waiter(HttpServerRequest request, Handler<HttpServerRequest> handler, Context context) {
+      this.request = request;
+      this.handler = handler;
+      this.context = context;
+    }
+  }
+
+  /**
+   * The requests waiting for the response of a leader.
+   */
+  private static class Flight {
+
+    private List<Waiter> waiters = new ArrayList<>();
+
+    /**
+     * @return false when the leader response already ended
+     */
+    synchronized boolean add(Waiter waiter) {
+      if (waiters == null) {
+        return false;
+      }
+      waiter.request.pause();
+      waiters.add(waiter);
+      return true;
+    }
+
+    synchronized List<Waiter> complete() {
+      List<Waiter> list = waiters;
+      waiters = null;
+      return list;
+    }
+  }
+
+  /**
+   * The response of the request passed to the handler on a miss, it copies the body written by the handler and caches
+   * the response when it ends.
+   */
+  private class Capture extends HttpServerResponseWrapper {
+
+    final HttpServerRequest request;
+    private final String base;
+    private final String key;
+    private final String[] vary;
+    private final Flight flight;
+    private Buffer body = Buffer.buffer();
+    private boolean written;
+    private boolean done;
+    private Handler<Void> closeHandler;
+
+    Capture(String base, String key, String[] vary, Flight flight, HttpServerRequest request) {
+      super(request.response());
+      this.base = base;
+      this.key = key;
+      this.vary = vary;
+      this.flight = flight;
+      this.request = new HttpServerRequestWrapper(request, this);
+      delegate.closeHandler(v -> {
+        // The connection was closed before the response ended
+        complete(null);
+        if (closeHandler != null) {
+          closeHandler.handle(v);
+        }
+      });
+    }
+
+    @Override
+    public HttpServerResponse closeHandler(Handler<Void> handler) {
+      closeHandler = handler;
+      return this;
+    }
+
+    @Override
+    public HttpServerResponse write(Buffer data) {
+      append(data);
+      written = true;
+      return super.write(data);
+    }
+
+    @Override
+    public HttpServerResponse write(String chunk, String enc) {
+      append(chunk, enc);
+      written = true;
+      return super.write(chunk, enc);
+    }
+
+    @Override
+    public HttpServerResponse write(String chunk) {
+      append(chunk, null);
+      written = true;
+      return super.write(chunk);
+    }
+
+    @Override
+    public void end(String chunk) {
+      append(chunk, null);
+      end(() -> super.end(chunk));
+    }
+
+    @Override
+    public void end(String chunk, String enc) {
+      append(chunk, enc);
+      end(() -> super.end(chunk, enc));
+    }
+
+    @Override
+    public void end(Buffer chunk) {
+      append(chunk);
+      end(() -> super.end(chunk));
+    }
+
+    @Override
+    public void end() {
+      end(super::end);
+    }
+
+    @Override
+    public HttpServerResponse sendFile(String filename) {
+      body = null;
+      try {
+        return super.sendFile(filename);
+      } finally {
+        complete(null);
+      }
+    }
+
+    @Override
+    public HttpServerResponse sendFile(String filename, Handler<AsyncResult<Void>> resultHandler) {
+      body = null;
+      try {
+        return super.sendFile(filename, resultHandler);
+      } finally {
+        complete(null);
+      }
+    }
+
+    @Override
+    public void close() {
+      body = null;
+      try {
+        super.close();
+      } finally {
+        complete(null);
+      }
+    }
+
+    private void end(Runnable end) {
+      Entry entry = !done && body != null && isCacheable(delegate) ? snapshot() : null;
+      try {
+        end.run();
+      } catch (RuntimeException | Error e) {
+        complete(null);
+        throw e;
+      }
+      complete(entry);
+    }
+
+    private void append(Buffer chunk) {
+      if (body != null) {
+        body.appendBuffer(chunk);
+        limit();
+      }
+    }
+
+    private void append(String chunk, String enc) {
+      if (body != null) {
+        if (enc == null) {
+          body.appendString(chunk);
+        } else {
+          body.appendString(chunk, enc);
+        }
+        limit();
+      }
+    }
+
+    private void limit() {
+      if (body.length() > maxSize) {
+        // Too large to be cached, stop copying
+        body = null;
+      }
+    }
+
+    private Entry snapshot() {
+      String[] responseVary = vary(delegate);
+      if (responseVary == null) {
+        return null;
+      }
+      String entryKey = Arrays.equals(responseVary, vary) ? key : base + varyKey(responseVary, request);
+      MultiMap headers = delegate.headers();
+      String etag = headers.get("ETag");
+      List<String[]> copy = new ArrayList<>();
+      if (etag == null) {
+        etag = etag(body);
+        if (written) {
+          // The headers are already sent, only the cached response gets the tag
+          copy.add(new String[] { "ETag", etag });
+        } else {
+          delegate.putHeader("ETag", etag);
+        }
+      }
+      long entrySize = body.length();
+      for (Map.Entry<String, String> header: headers) {
+        String name = header.getKey();
+        if (!NOT_STORED.contains(name)) {
+          copy.add(new String[] { name, header.getValue() });
+          entrySize += name.length() + header.getValue().length();
+        }
+      }
+      return new Entry(base, entryKey, responseVary, delegate.getStatusCode(), copy, body, etag,
+        System.currentTimeMillis() + ttl, entrySize);
+    }
+
+    void complete(Entry entry) {
+      if (!done) {
+        done = true;
+        ResponseCacheImpl.this.complete(key, flight, entry);
+      }
+    }
+  }
+}
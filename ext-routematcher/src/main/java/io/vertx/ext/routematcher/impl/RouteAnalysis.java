@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Finds the bindings shadowed by a binding registered before them, i.e. that can never be used because the earlier
+ * binding matches every path they match.<p>
+ * Shadowing is only reported when it is proven:
+ * <ul>
+ *   <li>a pattern without params is shadowed by an earlier binding matching its path</li>
+ *   <li>a simple pattern is shadowed by an earlier simple pattern with the same segments, where each literal segment
+ *   of the earlier one is also a literal segment of the later one</li>
+ *   <li>a regular expression is shadowed by an earlier binding with the same regular expression</li>
+ * </ul>
+ * Bindings with different literal prefixes are not compared.<p>
+ */
+class RouteAnalysis {
+
+  private static final String PARAM = "\0";
+
+  /**
+   * Report each binding of the list, in registration order, shadowed by a binding before it.
+   */
+  static void shadowed(List<PatternBinding> bindings, BiConsumer<PatternBinding, PatternBinding> reporter) {
+    int maxParams = 0;
+    for (PatternBinding binding: bindings) {
+      maxParams = Math.max(maxParams, binding.paramNames.length);
+    }
+    int[] captures = new int[maxParams * 2];
+    String[][] segments = new String[bindings.size()][];
+    for (int i = 0; i < bindings.size(); i++) {
+      PatternBinding binding = bindings.get(i);
+      segments[i] = binding.tokens != null ? segments(binding.tokens) : null;
+      for (int j = 0; j < i; j++) {
+        PatternBinding earlier = bindings.get(j);
+        if (isDisjoint(earlier, binding)) {
+          continue;
+        }
+        if (covers(earlier, segments[j], binding, segments[i], captures)) {
+          reporter.accept(binding, earlier);
+          break;
+        }
+      }
+    }
+  }
+
+  private static boolean isDisjoint(PatternBinding binding1, PatternBinding binding2) {
+    return !binding1.prefix.startsWith(binding2.prefix) && !binding2.prefix.startsWith(binding1.prefix);
+  }
+
+  private static boolean covers(PatternBinding earlier, String[] earlierSegments, PatternBinding binding,
+                                String[] segments, int[] captures) {
+    if (binding.tokens != null) {
+      if (binding.paramNames.length == 0) {
+        return earlier.matches(binding.prefix, captures);
+      }
+      if (earlierSegments == null || earlierSegments.length != segments.length) {
+        return false;
+      }
+      for (int i = 0; i < segments.length; i++) {
+        boolean covered = earlierSegments[i].equals(PARAM) ? !segments[i].isEmpty() :
+          earlierSegments[i].equals(segments[i]);
+        if (!covered) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return earlier.pattern != null && earlier.pattern.pattern().equals(binding.pattern.pattern());
+  }
+
+  /**
+   * @return the path segments of a simple pattern, params are represented by {@link #PARAM}
+   */
+  private static String[] segments(String[] tokens) {
+    StringBuilder sb = new StringBuilder();
+    for (String token: tokens) {
+      sb.append(token != null ? token : PARAM);
+    }
+    return sb.toString().split("/", -1);
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.routematcher.RouteLimiter;
+import io.vertx.ext.routematcher.RouteLimiterOptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The rate is enforced with the generic cell rate algorithm, a token bucket whose whole state is the theoretical
+ * arrival time of the next request, so that it is updated with a single compare and set: a request is accepted when
+ * the next arrival time is not further than the burst in the future, and then moves it one interval later.<p>
+ * The concurrency is counted with a compare and set loop against the current limit. The handler gets a wrapper of the
+ * request whose response releases the request when it ends, when it is closed or when the connection is closed.<p>
+ */
+public class RouteLimiterImpl implements RouteLimiter {
+
+  private final int maxConcurrency;
+  private final int minConcurrency;
+  private final boolean adaptiveConcurrency;
+  private final long targetLatency;
+  // Nanoseconds between two requests and accepted in advance, 0 when the rate is not limited
+  private final long interval;
+  private final long burstTime;
+  private final AtomicLong arrival = new AtomicLong(System.nanoTime());
+  private final AtomicInteger inflight = new AtomicInteger();
+  private final AtomicInteger limit;
+  private final AtomicInteger fastResponses = new AtomicInteger();
+  private final AtomicLong lastDecrease;
+
+  public RouteLimiterImpl(RouteLimiterOptions options) {
+    this.maxConcurrency = options.getMaxConcurrency();
+    this.minConcurrency = Math.min(options.getMinConcurrency(), Math.max(maxConcurrency, 1));
+    this.adaptiveConcurrency = options.isAdaptiveConcurrency();
+    this.targetLatency = TimeUnit.MILLISECONDS.toNanos(options.getTargetLatency());
+    this.interval = options.getRate() > 0 ? TimeUnit.SECONDS.toNanos(1) / options.getRate() : 0;
+    this.burstTime = interval * options.getBurst();
+    this.limit = new AtomicInteger(maxConcurrency);
+    this.lastDecrease = new AtomicLong(System.nanoTime() - targetLatency);
+  }
+
+  @Override
+  public Handler<HttpServerRequest> limit(Handler<HttpServerRequest> handler) {
+    return request -> handle(handler, request);
+  }
+
+  @Override
+  public int concurrencyLimit() {
+    return limit.get();
+  }
+
+  private void handle(Handler<HttpServerRequest> handler, HttpServerRequest request) {
+    if (interval > 0) {
+      long wait = acquireToken(System.nanoTime());
+      if (wait > 0) {
+        HttpServerResponse response = request.response();
+        response.setStatusCode(429);
+        response.putHeader("Retry-After", String.valueOf(TimeUnit.NANOSECONDS.toSeconds(wait) + 1));
+        response.end();
+        return;
+      }
+    }
+    if (maxConcurrency == 0) {
+      handler.handle(request);
+      return;
+    }
+    if (!acquireSlot()) {
+      request.response().setStatusCode(503);
+      request.response().end();
+      return;
+    }
+    Tracker tracker = new Tracker(request);
+    try {
+      handler.handle(tracker.request);
+    } catch (RuntimeException | Error e) {
+      tracker.release();
+      throw e;
+    }
+  }
+
+  /**
+   * @return 0 when the request is accepted, otherwise the time to wait in nanoseconds
+   */
+  private long acquireToken(long now) {
+    while (true) {
+      long next = arrival.get();
+      long start = next - now > 0 ? next : now;
+      long wait = start + interval - now - burstTime;
+      if (wait > 0) {
+        return wait;
+      }
+      if (arrival.compareAndSet(next, start + interval)) {
+        return 0;
+      }
+    }
+  }
+
+  private boolean acquireSlot() {
+    while (true) {
+      int count = inflight.get();
+      if (count >= limit.get()) {
+        return false;
+      }
+      if (inflight.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void release(long latency) {
+    inflight.decrementAndGet();
+    if (!adaptiveConcurrency) {
+      return;
+    }
+    int current = limit.get();
+    if (latency > targetLatency) {
+      long now = System.nanoTime();
+      long last = lastDecrease.get();
+      // Decrease once for a burst of slow responses
+      if (now - last >= targetLatency && lastDecrease.compareAndSet(last, now)) {
+        limit.compareAndSet(current, Math.max(minConcurrency, current * 9 / 10));
+      }
+    } else if (current < maxConcurrency && fastResponses.incrementAndGet() >= current) {
+      fastResponses.set(0);
+      limit.compareAndSet(current, current + 1);
+    }
+  }
+
+  /**
+   * The response of the request passed to the handler, it releases the request when it is done.
+   */
+  private class Tracker extends HttpServerResponseWrapper {
+
+    final HttpServerRequest request;
+    private final long start = System.nanoTime();
+    private boolean released;
+    private Handler<Void> closeHandler;
+
+    Tracker(HttpServerRequest request) {
+      super(request.response());
+      this.request = new HttpServerRequestWrapper(request, this);
+      delegate.closeHandler(v -> {
+        release();
+        if (closeHandler != null) {
+          closeHandler.handle(v);
+        }
+      });
+    }
+
+    @Override
+    public HttpServerResponse closeHandler(Handler<Void> handler) {
+      closeHandler = handler;
+      return this;
+    }
+
+    @Override
+    public void end(String chunk) {
+      try {
+        super.end(chunk);
+      } finally {
+        release();
+      }
+    }
+
+    @Override
+    public void end(String chunk, String enc) {
+      try {
+        super.end(chunk, enc);
+      } finally {
+        release();
+      }
+    }
+
+    @Override
+    public void end(Buffer chunk) {
+      try {
+        super.end(chunk);
+      } finally {
+        release();
+      }
+    }
+
+    @Override
+    public void end() {
+      try {
+        super.end();
+      } finally {
+        release();
+      }
+    }
+
+    @Override
+    public HttpServerResponse sendFile(String filename) {
+      // A file that cannot be sent gets a 404 response, as when no handler is given
+      return sendFile(filename, ar -> {
+        if (ar.failed() && !delegate.headWritten()) {
+          delegate.setStatusCode(404);
+          delegate.end();
+        }
+      });
+    }
+
+    @Override
+    public HttpServerResponse sendFile(String filename, Handler<AsyncResult<Void>> resultHandler) {
+      // The file is sent asynchronously, the request is released once it is sent
+      try {
+        delegate.sendFile(filename, ar -> {
+          release();
+          if (resultHandler != null) {
+            resultHandler.handle(ar);
+          }
+        });
+      } catch (RuntimeException e) {
+        release();
+        throw e;
+      }
+      return this;
+    }
+
+    @Override
+    public void close() {
+      try {
+        super.close();
+      } finally {
+        release();
+      }
+    }
+
+    void release() {
+      if (!released) {
+        released = true;
+        RouteLimiterImpl.this.release(System.nanoTime() - start);
+      }
+    }
+  }
+}
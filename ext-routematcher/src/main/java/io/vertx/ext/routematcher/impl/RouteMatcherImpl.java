@@ -19,12 +19,20 @@ package io.vertx.ext.routematcher.impl;
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.impl.LoggerFactory;
+import io.vertx.ext.routematcher.FilterContext;
 import io.vertx.ext.routematcher.RouteMatcher;
+import io.vertx.ext.routematcher.RouteMatcherOptions;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -43,31 +51,290 @@ import java.util.regex.Pattern;
  * parameters do not have a name, so they are put into the HTTP request with names of param0, param1, param2 etc.<p>
  * Multiple matches can be specified for each HTTP verb. In the case there are more than one matching patterns for
  * a particular request, the first matching one will be used.<p>
- * Instances of this class are not thread-safe<p>
+ * Bindings registered with {@link #all(String, Handler)} and {@link #allWithRegEx(String, Handler)} are stored once
+ * in tables shared by all the methods, the bindings list of a method is merged with the shared one in registration
+ * order on the first request after a change.<p>
+ * Requests can be routed to other route matchers by host or by header value, these are looked up in hash tables before
+ * any binding is matched.<p>
+ * Patterns without any parameter or regular expression metacharacter are served from an exact match table
+ * consulted before any other matching, such a binding is only added to the table when no binding registered before
+ * it matches the same path.<p>
+ * When {@link RouteMatcherOptions#isRadixTree()} is enabled, simple patterns are indexed in a {@link RadixTree}
+ * and only the remaining patterns are matched one by one, the first matching one is still the one used.<p>
+ * When {@link RouteMatcherOptions#isCombinedRegEx()} is enabled, the remaining patterns are matched with a
+ * {@link CombinedRegEx} per run of combinable bindings instead of one by one.<p>
+ * When {@link RouteMatcherOptions#isMetricsEnabled()} is enabled, each request is recorded in the {@link RouteMetrics}
+ * of the binding that matched it, or of the no match handler.<p>
+ * When {@link RouteMatcherOptions#isAdaptiveOrdering()} is enabled, the bindings lists are periodically reordered by
+ * {@link AdaptiveOrdering} so that the most hit bindings are tested first, the lists are then no longer in
+ * registration order.<p>
+ * When {@link #compile() compiled}, the remaining patterns of each method are indexed in a {@link DispatchTable} so
+ * that a path is only matched against the bindings whose first literal segment is the first segment of the path.<p>
+ * Every binding is also kept in registration order for {@link RouteAnalysis}, including the bindings that are never
+ * indexed because they are shadowed by an earlier one.<p>
+ * The filters are compiled into a {@link FilterChain} per binding on the first request after a change, the handler
+ * of a binding without filters is called directly.<p>
+ * When {@link RouteMatcherOptions#isNormalizePaths()} is enabled, the request path is normalized once by the
+ * {@link PathNormalizer} and all the lookups use the normalized path.<p>
+ * Instances of this class are not thread-safe, {@link #freeze()} returns a thread-safe route matcher that can be
+ * shared by several event loops<p>
  *
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
 public class RouteMatcherImpl implements RouteMatcher {
 
+  private static final Logger log = LoggerFactory.getLogger(RouteMatcherImpl.class);
+
+  // Param offsets written by the matching, kept per thread as a frozen route matcher is shared by several threads
+  private static final ThreadLocal<Captures> captures = ThreadLocal.withInitial(Captures::new);
+
+  // The methods matched by all() and allWithRegEx()
+  private static final Set<HttpMethod> ALL_METHODS = EnumSet.of(HttpMethod.GET, HttpMethod.PUT, HttpMethod.POST,
+    HttpMethod.DELETE, HttpMethod.OPTIONS, HttpMethod.HEAD, HttpMethod.TRACE, HttpMethod.CONNECT, HttpMethod.PATCH);
+
+  private final Map<HttpMethod, Map<String, PatternBinding>> staticMap = new HashMap<>();
   private final Map<HttpMethod, List<PatternBinding>> bindingsMap = new HashMap<>();
-  
+  private final Map<HttpMethod, RadixTree> treeMap = new HashMap<>();
+  // The bindings registered for all the methods
+  private final Map<String, PatternBinding> allStatics = new HashMap<>();
+  private final List<PatternBinding> allBindings = new ArrayList<>();
+  private RadixTree allTree;
+  // The bindings list of each method merged with the bindings for all the methods, built on the first request after
+  // a change, the lists are replaced rather than modified
+  private final Map<HttpMethod, List<PatternBinding>> routesMap = new HashMap<>();
+  // Combined form of the routes lists, built on the first request after a change
+  private final Map<HttpMethod, List<CombinedRegEx>> combinedMap = new HashMap<>();
+  // Dispatch tables of the routes lists, built by compile()
+  private final Map<HttpMethod, DispatchTable> tableMap = new HashMap<>();
+  // All the bindings of each method in registration order, the null key holds the bindings for all the methods
+  private final Map<HttpMethod, List<PatternBinding>> registeredMap = new HashMap<>();
+  // Route matchers by host and by lower case header name and header value
+  private final Map<String, RouteMatcher> hostMap = new HashMap<>();
+  private final Map<String, Map<String, RouteMatcher>> headerMap = new LinkedHashMap<>();
+  private final boolean radixTree;
+  private final boolean combinedRegEx;
+  private int bindingCount;
+  private int maxParams;
+  // Metrics by method and pattern in registration order, null when metrics are disabled
+  private final Map<String, RouteMetrics> metricsMap;
+  private final RouteMetrics noMatchMetrics;
+  private final boolean metricsEnabled;
+  // Null when adaptive ordering is disabled
+  private final AdaptiveOrdering adaptiveOrdering;
+  // Null when paths are not normalized
+  private final PathNormalizer normalizer;
+  private final List<FilterChain.Filter> beforeFilters = new ArrayList<>();
+  private final List<FilterChain.Filter> afterFilters = new ArrayList<>();
+  // The filter chains by binding order, built on the first request after a change, null when there is no filter
+  private FilterChain[] chains;
+
   private Handler<HttpServerRequest> noMatchHandler;
 
   /**
    * Do not instantiate this directly - use RouteMatcher.newRouteMatcher() instead
    */
   public RouteMatcherImpl() {
+    this(new RouteMatcherOptions());
+  }
+
+  /**
+   * Do not instantiate this directly - use RouteMatcher.newRouteMatcher(RouteMatcherOptions) instead
+   */
+  public RouteMatcherImpl(RouteMatcherOptions options) {
+    this.radixTree = options.isRadixTree();
+    this.combinedRegEx = options.isCombinedRegEx();
+    // Adaptive ordering relies on the hits counted by the metrics
+    boolean metrics = options.isMetricsEnabled() || options.isAdaptiveOrdering();
+    this.metricsMap = metrics ? new LinkedHashMap<>() : null;
+    this.noMatchMetrics = metrics ? new RouteMetrics() : null;
+    this.metricsEnabled = options.isMetricsEnabled();
+    this.adaptiveOrdering = options.isAdaptiveOrdering() ?
+      new AdaptiveOrdering(options.getAdaptiveOrderingInterval()) : null;
+    this.normalizer = options.isNormalizePaths() ? new PathNormalizer(options.getPathCacheSize()) : null;
+  }
+
+  /**
+   * @param deep whether the tables of the bindings are copied, so that the copy can be changed, or shared
+   */
+  private RouteMatcherImpl(RouteMatcherImpl other, boolean deep) {
+    this.radixTree = other.radixTree;
+    this.combinedRegEx = other.combinedRegEx;
+    this.bindingCount = other.bindingCount;
+    this.maxParams = other.maxParams;
+    this.noMatchHandler = other.noMatchHandler;
+    this.metricsMap = other.metricsMap != null ? new LinkedHashMap<>(other.metricsMap) : null;
+    this.noMatchMetrics = other.noMatchMetrics;
+    this.metricsEnabled = other.metricsEnabled;
+    this.adaptiveOrdering = other.adaptiveOrdering;
+    this.normalizer = other.normalizer;
+    this.beforeFilters.addAll(other.beforeFilters);
+    this.afterFilters.addAll(other.afterFilters);
+    this.chains = other.chains;
+    if (deep) {
+      other.staticMap.forEach((method, statics) -> staticMap.put(method, new HashMap<>(statics)));
+      other.bindingsMap.forEach((method, bindings) -> bindingsMap.put(method, new ArrayList<>(bindings)));
+      other.treeMap.forEach((method, tree) -> treeMap.put(method, tree.copy()));
+      allTree = other.allTree != null ? other.allTree.copy() : null;
+      other.registeredMap.forEach((method, bindings) -> registeredMap.put(method, new ArrayList<>(bindings)));
+      other.headerMap.forEach((name, values) -> headerMap.put(name, new HashMap<>(values)));
+    } else {
+      staticMap.putAll(other.staticMap);
+      bindingsMap.putAll(other.bindingsMap);
+      treeMap.putAll(other.treeMap);
+      allTree = other.allTree;
+      registeredMap.putAll(other.registeredMap);
+      headerMap.putAll(other.headerMap);
+    }
+    allStatics.putAll(other.allStatics);
+    allBindings.addAll(other.allBindings);
+    routesMap.putAll(other.routesMap);
+    combinedMap.putAll(other.combinedMap);
+    tableMap.putAll(other.tableMap);
+    hostMap.putAll(other.hostMap);
+  }
+
+  /**
+   * @return a copy of this route matcher, the bindings and compiled patterns are shared with this instance
+   */
+  RouteMatcherImpl copy() {
+    return new RouteMatcherImpl(this, true);
+  }
+
+  /**
+   * Build eagerly what is otherwise built on the first request after a change along with the dispatch tables, after
+   * this call and until the next change, dispatching a request does not modify this instance.
+   */
+  void compile() {
+    for (HttpMethod method: HttpMethod.values()) {
+      List<PatternBinding> routes = routes(method);
+      if (!tableMap.containsKey(method)) {
+        tableMap.put(method, new DispatchTable(routes, combinedRegEx));
+      }
+    }
+    chains();
+  }
+
+  @Override
+  public RouteMatcher freeze() {
+    shadowedRoutes().forEach((route, by) -> log.warn("Route " + route + " is never used, it is shadowed by " + by));
+    return new FrozenRouteMatcher(this);
+  }
+
+  @Override
+  public Map<String, String> shadowedRoutes() {
+    Map<String, String> shadowed = new LinkedHashMap<>();
+    List<PatternBinding> allRegistered = registeredMap.getOrDefault(null, new ArrayList<>());
+    Set<PatternBinding> all = new HashSet<>(allRegistered);
+    for (HttpMethod method: HttpMethod.values()) {
+      List<PatternBinding> registered = registeredMap.getOrDefault(method, new ArrayList<>());
+      if (ALL_METHODS.contains(method)) {
+        registered = merge(registered, allRegistered);
+      }
+      RouteAnalysis.shadowed(registered, (binding, by) -> {
+        boolean allShadowed = all.contains(binding) && all.contains(by);
+        shadowed.putIfAbsent((allShadowed ? "ALL" : method) + " " + binding.source,
+          (all.contains(by) ? "ALL" : method) + " " + by.source);
+      });
+    }
+    return shadowed;
+  }
+
+  /**
+   * Move the most hit bindings first where this does not change the binding matching any path.
+   */
+  void reorder() {
+    routesMap.replaceAll((method, bindings) -> {
+      List<PatternBinding> reordered = AdaptiveOrdering.reorder(bindings);
+      if (reordered == null) {
+        return bindings;
+      }
+      combinedMap.remove(method);
+      tableMap.remove(method);
+      return reordered;
+    });
+  }
+
+  /**
+   * Reorder a compiled route matcher without changing it. Only the dispatch tables of the reordered bindings lists are
+   * built again, everything else is shared with this instance which must not be changed afterwards.
+   *
+   * @return the reordered route matcher, compiled, or {@code null} when the order is unchanged
+   */
+  RouteMatcherImpl reordered() {
+    RouteMatcherImpl snapshot = null;
+    for (Map.Entry<HttpMethod, List<PatternBinding>> entry: routesMap.entrySet()) {
+      List<PatternBinding> reordered = AdaptiveOrdering.reorder(entry.getValue());
+      if (reordered != null) {
+        if (snapshot == null) {
+          snapshot = new RouteMatcherImpl(this, false);
+        }
+        HttpMethod method = entry.getKey();
+        snapshot.routesMap.put(method, reordered);
+        snapshot.combinedMap.remove(method);
+        snapshot.tableMap.put(method, new DispatchTable(reordered, combinedRegEx));
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Count a request for adaptive ordering.
+   *
+   * @return whether {@link #reorder()} should be called
+   */
+  boolean isReorderDue() {
+    return adaptiveOrdering != null && adaptiveOrdering.isDue();
   }
 
   @Override
   public RouteMatcher accept(HttpServerRequest request) {
-    List<PatternBinding> bindings = bindingsMap.get(request.method());
-    if (bindings != null) {
-      route(request, bindings);
+    dispatch(request);
+    if (isReorderDue()) {
+      reorder();
+    }
+    return this;
+  }
+
+  /**
+   * Route the request to its handler, this does not modify this route matcher once {@link #compile() compiled}.
+   */
+  void dispatch(HttpServerRequest request) {
+    if (!hostMap.isEmpty() || !headerMap.isEmpty()) {
+      RouteMatcher routeMatcher = routeMatcher(request);
+      if (routeMatcher != null) {
+        routeMatcher.accept(request);
+        return;
+      }
+    }
+    long start = metricsMap != null ? System.nanoTime() : 0;
+    Captures captures = captures();
+    captures.attempts = 0;
+    PatternBinding binding = route(request, captures);
+    if (metricsMap != null) {
+      RouteMetrics metrics = binding != null ? binding.metrics : noMatchMetrics;
+      metrics.record(captures.attempts, System.nanoTime() - start);
+    }
+    if (binding != null) {
+      FilterChain[] chains = chains();
+      FilterChain chain = chains != null ? chains[binding.order] : null;
+      if (chain != null) {
+        chain.handle(request, binding.handler);
+      } else {
+        binding.handler.handle(request);
+      }
     } else {
       notFound(request);
     }
-    return this;
+  }
+
+  @Override
+  public Map<String, JsonObject> metrics() {
+    Map<String, JsonObject> metrics = new LinkedHashMap<>();
+    if (metricsEnabled) {
+      metricsMap.forEach((name, routeMetrics) -> metrics.put(name, routeMetrics.toJson()));
+      metrics.put("noMatch", noMatchMetrics.toJson());
+    }
+    return metrics;
   }
 
   @Override
@@ -89,15 +356,7 @@ public class RouteMatcherImpl implements RouteMatcher {
    */
   @Override
   public RouteMatcherImpl all(String pattern, Handler<HttpServerRequest> handler) {
-    addPattern(HttpMethod.GET, pattern, handler);
-    addPattern(HttpMethod.PUT, pattern, handler);
-    addPattern(HttpMethod.POST, pattern, handler);
-    addPattern(HttpMethod.DELETE, pattern, handler);
-    addPattern(HttpMethod.OPTIONS, pattern, handler);
-    addPattern(HttpMethod.HEAD, pattern, handler);
-    addPattern(HttpMethod.TRACE, pattern, handler);
-    addPattern(HttpMethod.CONNECT, pattern, handler);
-    addPattern(HttpMethod.PATCH, pattern, handler);    
+    addPattern(null, pattern, handler);
     return this;
   }
 
@@ -108,15 +367,48 @@ public class RouteMatcherImpl implements RouteMatcher {
    */
   @Override
   public RouteMatcherImpl allWithRegEx(String regex, Handler<HttpServerRequest> handler) {
-    addRegEx(HttpMethod.GET, regex, handler);
-    addRegEx(HttpMethod.PUT, regex, handler);
-    addRegEx(HttpMethod.POST, regex, handler);
-    addRegEx(HttpMethod.DELETE, regex, handler);
-    addRegEx(HttpMethod.OPTIONS, regex, handler);
-    addRegEx(HttpMethod.HEAD, regex, handler);
-    addRegEx(HttpMethod.TRACE, regex, handler);
-    addRegEx(HttpMethod.CONNECT, regex, handler);
-    addRegEx(HttpMethod.PATCH, regex, handler);
+    addRegEx(null, regex, handler);
+    return this;
+  }
+
+  @Override
+  public RouteMatcherImpl host(String host, RouteMatcher routeMatcher) {
+    hostMap.putIfAbsent(host.toLowerCase(Locale.ENGLISH), routeMatcher);
+    return this;
+  }
+
+  @Override
+  public RouteMatcherImpl header(String name, String value, RouteMatcher routeMatcher) {
+    Map<String, RouteMatcher> values = headerMap.get(name.toLowerCase(Locale.ENGLISH));
+    if (values == null) {
+      values = new HashMap<>();
+      headerMap.put(name.toLowerCase(Locale.ENGLISH), values);
+    }
+    values.putIfAbsent(value, routeMatcher);
+    return this;
+  }
+
+  @Override
+  public RouteMatcherImpl before(Handler<FilterContext> filter) {
+    return before(null, filter);
+  }
+
+  @Override
+  public RouteMatcherImpl before(String pattern, Handler<FilterContext> filter) {
+    beforeFilters.add(new FilterChain.Filter(pattern, filter));
+    chains = null;
+    return this;
+  }
+
+  @Override
+  public RouteMatcherImpl after(Handler<FilterContext> filter) {
+    return after(null, filter);
+  }
+
+  @Override
+  public RouteMatcherImpl after(String pattern, Handler<FilterContext> filter) {
+    afterFilters.add(new FilterChain.Filter(pattern, filter));
+    chains = null;
     return this;
   }
 
@@ -130,12 +422,14 @@ public class RouteMatcherImpl implements RouteMatcher {
     return this;
   }
 
+  // The methods below take a null method for the bindings of all the methods
+
   private void addPattern(HttpMethod method, String input, Handler<HttpServerRequest> handler) {
-    List<PatternBinding> bindings = getBindings(method);
     // We need to search for any :<token name> tokens in the String and replace them with named capture groups
     Matcher m =  Pattern.compile(":([A-Za-z][A-Za-z0-9_]*)").matcher(input);
     StringBuffer sb = new StringBuffer();
     Set<String> groups = new HashSet<>();
+    List<String> paramNames = new ArrayList<>();
     while (m.find()) {
       String group = m.group().substring(1);
       if (groups.contains(group)) {
@@ -143,20 +437,134 @@ public class RouteMatcherImpl implements RouteMatcher {
       }
       m.appendReplacement(sb, "(?<$1>[^\\/]+)");
       groups.add(group);
+      paramNames.add(group);
     }
     m.appendTail(sb);
-    String regex = sb.toString();
-    PatternBinding binding = new PatternBinding(Pattern.compile(regex), groups, handler);
-    bindings.add(binding);
+    String[] names = paramNames.toArray(new String[paramNames.size()]);
+    String[] tokens = PatternBinding.tokenize(input);
+    if (tokens != null) {
+      // Simple patterns are matched without the regex
+      PatternBinding binding = PatternBinding.simple(bindingCount++, input, tokens, names, handler,
+        getMetrics(method, input));
+      getRegistered(method).add(binding);
+      if (names.length == 0) {
+        addStatic(method, input, binding);
+      } else if (radixTree) {
+        getTree(method).add(tokens, binding);
+      } else {
+        getBindings(method).add(binding);
+      }
+    } else {
+      String regex = sb.toString();
+      PatternBinding binding = PatternBinding.named(bindingCount++, input, Pattern.compile(regex), names, handler,
+        getMetrics(method, input));
+      getRegistered(method).add(binding);
+      getBindings(method).add(binding);
+    }
+    maxParams = Math.max(maxParams, names.length);
   }
 
   private void addRegEx(HttpMethod method, String input, Handler<HttpServerRequest> handler) {
     List<PatternBinding> bindings = getBindings(method);
-    PatternBinding binding = new PatternBinding(Pattern.compile(input), null, handler);
+    PatternBinding binding = PatternBinding.regex(bindingCount++, input, Pattern.compile(input), handler,
+      getMetrics(method, input));
+    getRegistered(method).add(binding);
     bindings.add(binding);
   }
-  
+
+  private void addStatic(HttpMethod method, String path, PatternBinding binding) {
+    // A binding registered before always wins for the only path this binding can match
+    if (method != null) {
+      if (!isMatched(method, path)) {
+        getStatics(method).put(path, binding);
+      }
+    } else if (!allStatics.containsKey(path)) {
+      List<HttpMethod> methods = new ArrayList<>();
+      for (HttpMethod m: ALL_METHODS) {
+        if (!isMatched(m, path)) {
+          methods.add(m);
+        }
+      }
+      if (methods.size() == ALL_METHODS.size()) {
+        allStatics.put(path, binding);
+      } else {
+        // Only some methods can use this binding
+        for (HttpMethod m: methods) {
+          getStatics(m).put(path, binding);
+        }
+      }
+    }
+  }
+
+  private Map<String, PatternBinding> getStatics(HttpMethod method) {
+    Map<String, PatternBinding> statics = staticMap.get(method);
+    if (statics == null) {
+      statics = new HashMap<>();
+      staticMap.put(method, statics);
+    }
+    return statics;
+  }
+
+  /**
+   * @return whether a registered binding of the method matches the path
+   */
+  private boolean isMatched(HttpMethod method, String path) {
+    boolean all = ALL_METHODS.contains(method);
+    Map<String, PatternBinding> statics = staticMap.get(method);
+    if ((statics != null && statics.containsKey(path)) || (all && allStatics.containsKey(path))) {
+      return true;
+    }
+    Captures captures = captures();
+    RadixTree tree = treeMap.get(method);
+    if ((tree != null && tree.lookup(path, captures.tree) != null) ||
+      (all && allTree != null && allTree.lookup(path, captures.tree) != null)) {
+      return true;
+    }
+    return isMatched(bindingsMap.get(method), path, captures) || (all && isMatched(allBindings, path, captures));
+  }
+
+  private static boolean isMatched(List<PatternBinding> bindings, String path, Captures captures) {
+    if (bindings != null) {
+      for (PatternBinding binding: bindings) {
+        if (binding.tokens != null ? binding.matchTokens(path, captures.values) : binding.pattern.matcher(path).matches()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private Captures captures() {
+    Captures c = captures.get();
+    if (c.values.length < maxParams * 2) {
+      c.values = new int[maxParams * 2];
+      c.tree = new int[maxParams * 2];
+      c.allTree = new int[maxParams * 2];
+    }
+    return c;
+  }
+
+  private List<PatternBinding> getRegistered(HttpMethod method) {
+    // The chains are indexed by binding order
+    chains = null;
+    List<PatternBinding> registered = registeredMap.get(method);
+    if (registered == null) {
+      registered = new ArrayList<>();
+      registeredMap.put(method, registered);
+    }
+    return registered;
+  }
+
   private List<PatternBinding> getBindings(HttpMethod method) {
+    if (method == null) {
+      routesMap.clear();
+      combinedMap.clear();
+      tableMap.clear();
+      return allBindings;
+    }
+    routesMap.remove(method);
+    combinedMap.remove(method);
+    tableMap.remove(method);
     List<PatternBinding> bindings = bindingsMap.get(method);
     if (bindings == null) {
       bindings = new ArrayList<>();
@@ -165,28 +573,234 @@ public class RouteMatcherImpl implements RouteMatcher {
     return bindings;
   }
 
-  private void route(HttpServerRequest request, List<PatternBinding> bindings) {
-    for (PatternBinding binding: bindings) {
-      Matcher m = binding.pattern.matcher(request.path());
-      if (m.matches()) {
-        Map<String, String> params = new HashMap<>(m.groupCount());
-        if (binding.paramNames != null) {
-          // Named params
-          for (String param: binding.paramNames) {
-            params.put(param, m.group(param));
-          }
-        } else {
-          // Un-named params
-          for (int i = 0; i < m.groupCount(); i++) {
-            params.put("param" + i, m.group(i + 1));
-          }
+  private RouteMetrics getMetrics(HttpMethod method, String pattern) {
+    if (metricsMap == null) {
+      return null;
+    }
+    String name = (method != null ? method : "ALL") + " " + pattern;
+    RouteMetrics metrics = metricsMap.get(name);
+    if (metrics == null) {
+      metrics = new RouteMetrics();
+      metricsMap.put(name, metrics);
+    }
+    return metrics;
+  }
+
+  private RadixTree getTree(HttpMethod method) {
+    if (method == null) {
+      if (allTree == null) {
+        allTree = new RadixTree();
+      }
+      return allTree;
+    }
+    RadixTree tree = treeMap.get(method);
+    if (tree == null) {
+      tree = new RadixTree();
+      treeMap.put(method, tree);
+    }
+    return tree;
+  }
+
+  private FilterChain[] chains() {
+    if (chains == null && (!beforeFilters.isEmpty() || !afterFilters.isEmpty())) {
+      chains = FilterChain.build(registeredMap.values(), bindingCount, beforeFilters, afterFilters);
+    }
+    return chains;
+  }
+
+  /**
+   * @return the route matcher of the host or of a header value of the request or {@code null} when there is none
+   */
+  private RouteMatcher routeMatcher(HttpServerRequest request) {
+    if (!hostMap.isEmpty()) {
+      String host = request.headers().get("host");
+      if (host != null) {
+        RouteMatcher routeMatcher = hostMap.get(hostName(host));
+        if (routeMatcher != null) {
+          return routeMatcher;
         }
-        request.params().addAll(params);
-        binding.handler.handle(request);
-        return;
       }
     }
-    notFound(request);
+    for (Map.Entry<String, Map<String, RouteMatcher>> entry: headerMap.entrySet()) {
+      String value = request.headers().get(entry.getKey());
+      if (value != null) {
+        RouteMatcher routeMatcher = headerValue(entry.getValue(), value);
+        if (routeMatcher != null) {
+          return routeMatcher;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String hostName(String host) {
+    int end;
+    if (host.startsWith("[")) {
+      // IPv6 address
+      end = host.indexOf(']') + 1;
+    } else {
+      end = host.indexOf(':');
+    }
+    if (end > 0) {
+      host = host.substring(0, end);
+    }
+    return host.toLowerCase(Locale.ENGLISH);
+  }
+
+  private static RouteMatcher headerValue(Map<String, RouteMatcher> values, String header) {
+    RouteMatcher routeMatcher = values.get(header);
+    if (routeMatcher != null) {
+      return routeMatcher;
+    }
+    // Try each element of the list without its parameters
+    int len = header.length();
+    int pos = 0;
+    while (pos < len) {
+      int end = header.indexOf(',', pos);
+      if (end == -1) {
+        end = len;
+      }
+      int semicolon = header.indexOf(';', pos);
+      String value = header.substring(pos, semicolon != -1 && semicolon < end ? semicolon : end).trim();
+      routeMatcher = values.get(value);
+      if (routeMatcher != null) {
+        return routeMatcher;
+      }
+      pos = end + 1;
+    }
+    return null;
+  }
+
+  /**
+   * @return the bindings list of the method merged with the bindings for all the methods
+   */
+  private List<PatternBinding> routes(HttpMethod method) {
+    List<PatternBinding> routes = routesMap.get(method);
+    if (routes == null) {
+      List<PatternBinding> bindings = bindingsMap.get(method);
+      if (bindings == null) {
+        bindings = new ArrayList<>();
+      }
+      routes = ALL_METHODS.contains(method) ? merge(bindings, allBindings) : new ArrayList<>(bindings);
+      routesMap.put(method, routes);
+    }
+    return routes;
+  }
+
+  private static List<PatternBinding> merge(List<PatternBinding> bindings1, List<PatternBinding> bindings2) {
+    List<PatternBinding> merged = new ArrayList<>(bindings1.size() + bindings2.size());
+    int i1 = 0;
+    int i2 = 0;
+    while (i1 < bindings1.size() || i2 < bindings2.size()) {
+      if (i2 == bindings2.size() || (i1 < bindings1.size() && bindings1.get(i1).order < bindings2.get(i2).order)) {
+        merged.add(bindings1.get(i1++));
+      } else {
+        merged.add(bindings2.get(i2++));
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Find the binding of the request and add its params to the request.
+   *
+   * @return the binding or {@code null} when no binding matches
+   */
+  private PatternBinding route(HttpServerRequest request, Captures captures) {
+    HttpMethod method = request.method();
+    String path = normalizer != null ? normalizer.normalize(request.path()) : request.path();
+    boolean all = ALL_METHODS.contains(method);
+    Map<String, PatternBinding> statics = staticMap.get(method);
+    PatternBinding binding = statics != null ? statics.get(path) : null;
+    if (binding == null && all && !allStatics.isEmpty()) {
+      binding = allStatics.get(path);
+    }
+    if (binding != null) {
+      return binding;
+    }
+    RadixTree tree = treeMap.get(method);
+    PatternBinding match = tree != null ? tree.lookup(path, captures.tree) : null;
+    int[] treeCaptures = captures.tree;
+    if (all && allTree != null) {
+      PatternBinding allMatch = allTree.lookup(path, captures.allTree);
+      if (allMatch != null && (match == null || allMatch.order < match.order)) {
+        match = allMatch;
+        treeCaptures = captures.allTree;
+      }
+    }
+    int bound = match != null ? match.order : Integer.MAX_VALUE;
+    DispatchTable table = tableMap.get(method);
+    if (combinedRegEx) {
+      binding = routeCombined(request, table != null ? table.candidates(path).runs : combined(method), path, bound,
+        captures);
+    } else {
+      binding = routeLinear(request, table != null ? table.candidates(path).bindings : routes(method), path, bound,
+        captures);
+    }
+    if (binding != null) {
+      return binding;
+    }
+    if (match != null) {
+      match.addParams(request, path, treeCaptures);
+    }
+    return match;
+  }
+
+  private PatternBinding routeLinear(HttpServerRequest request, List<PatternBinding> routes, String path, int bound,
+                                     Captures captures) {
+    for (PatternBinding route: routes) {
+      if (route.order > bound) {
+        // The tree match was registered first
+        if (adaptiveOrdering != null) {
+          // Bindings are not in registration order
+          continue;
+        }
+        break;
+      }
+      if (route.tokens != null) {
+        if (route.matchTokens(path, captures.values)) {
+          route.addParams(request, path, captures.values);
+          return route;
+        }
+      } else {
+        Matcher m = route.pattern.matcher(path);
+        if (m.matches()) {
+          route.addParams(request, m, 1);
+          return route;
+        }
+      }
+      captures.attempts++;
+    }
+    return null;
+  }
+
+  private List<CombinedRegEx> combined(HttpMethod method) {
+    List<CombinedRegEx> runs = combinedMap.get(method);
+    if (runs == null) {
+      runs = CombinedRegEx.combine(routes(method));
+      combinedMap.put(method, runs);
+    }
+    return runs;
+  }
+
+  private PatternBinding routeCombined(HttpServerRequest request, List<CombinedRegEx> runs, String path, int bound,
+                                       Captures captures) {
+    for (CombinedRegEx run: runs) {
+      if (run.minOrder() > bound) {
+        // The tree match was registered first
+        if (adaptiveOrdering != null) {
+          // Bindings are not in registration order
+          continue;
+        }
+        break;
+      }
+      PatternBinding binding = run.route(request, path, bound, captures.values);
+      if (binding != null) {
+        return binding;
+      }
+      captures.attempts++;
+    }
+    return null;
   }
 
   private void notFound(HttpServerRequest request) {
@@ -199,16 +813,12 @@ public class RouteMatcherImpl implements RouteMatcher {
     }
   }
 
-  private static class PatternBinding {
-    final Pattern pattern;
-    final Handler<HttpServerRequest> handler;
-    final Set<String> paramNames;
-
-    private PatternBinding(Pattern pattern, Set<String> paramNames, Handler<HttpServerRequest> handler) {
-      this.pattern = pattern;
-      this.paramNames = paramNames;
-      this.handler = handler;
-    }
+  private static class Captures {
+    int[] values = new int[0];
+    int[] tree = new int[0];
+    int[] allTree = new int[0];
+    // The patterns tried and not matched by the current request
+    int attempts;
   }
 
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.impl;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatch counters of a binding, or of the requests no binding matched.<p>
+ * The counters are {@link LongAdder}s so that recording does not contend when a frozen route matcher is shared by
+ * several event loops, they are summed when a snapshot is taken.<p>
+ */
+class RouteMetrics {
+
+  private final LongAdder count = new LongAdder();
+  // The patterns tried and not matched before the request was routed
+  private final LongAdder failedAttempts = new LongAdder();
+  // The time spent finding the binding in nanoseconds, the handler is not included
+  private final LongAdder matchTime = new LongAdder();
+
+  void record(int failed, long time) {
+    count.increment();
+    if (failed > 0) {
+      failedAttempts.add(failed);
+    }
+    matchTime.add(time);
+  }
+
+  long count() {
+    return count.sum();
+  }
+
+  JsonObject toJson() {
+    long c = count.sum();
+    long time = matchTime.sum();
+    return new JsonObject()
+      .put("count", c)
+      .put("failedAttempts", failedAttempts.sum())
+      .put("matchTime", time)
+      .put("meanMatchTime", c > 0 ? (double) time / c : 0d);
+  }
+}
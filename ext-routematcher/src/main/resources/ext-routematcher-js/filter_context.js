@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+var utils = require('vertx-js/util/utils');
+var HttpServerRequest = require('vertx-js/http_server_request');
+
+var io = Packages.io;
+var JsonObject = io.vertx.core.json.JsonObject;
+var JFilterContext = io.vertx.ext.routematcher.FilterContext;
+
+/**
+
+ A request going through the filters of a route matcher.<p>
+  @class
+*/
+var FilterContext = function(j_val) {
+
+  var j_filterContext = j_val;
+  var that = this;
+
+  /*
+   @return the request being filtered, with the params of its route
+  */
+  this.request = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      return new HttpServerRequest(j_filterContext.request());
+    } else utils.invalidArgs();
+  };
+
+  /*
+   Call the next filter, or the handler of the route after the last before filter.
+  */
+  this.next = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      j_filterContext.next();
+    } else utils.invalidArgs();
+  };
+
+  this._vertxgen = true;
+
+  // Get a reference to the underlying Java delegate
+  this._jdel = function() {
+    return j_filterContext;
+  }
+
+};
+
+// We export the Constructor function
+module.exports = FilterContext;
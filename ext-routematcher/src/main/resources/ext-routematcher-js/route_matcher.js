@@ -16,10 +16,12 @@
 
 var utils = require('vertx-js/util/utils');
 var HttpServerRequest = require('vertx-js/http_server_request');
+var FilterContext = require('ext-routematcher-js/filter_context');
 
 var io = Packages.io;
 var JsonObject = io.vertx.core.json.JsonObject;
 var JRouteMatcher = io.vertx.ext.routematcher.RouteMatcher;
+var RouteMatcherOptions = io.vertx.ext.routematcher.RouteMatcherOptions;
 
 /**
 
@@ -90,6 +92,73 @@ var RouteMatcher = function(j_val) {
     } else utils.invalidArgs();
   };
 
+  /*
+   Route the requests for a virtual host to another route matcher. The host is compared ignoring case and port.
+   The requests for the host are dispatched to that route matcher, even when none of its bindings matches, instead of
+   being matched against the bindings of this route matcher. Hosts are looked up in a hash table before any pattern is
+   evaluated, when a host is registered several times the first route matcher is used.
+  */
+  this.host = function(host, routeMatcher) {
+    var __args = arguments;
+    if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && __args[1]._vertxgen) {
+      j_routeMatcher.host(host, routeMatcher._jdel());
+      return that;
+    } else utils.invalidArgs();
+  };
+
+  /*
+   Route the requests with a header value to another route matcher, for instance to route on {@code Accept} or
+   {@code Content-Type}. The header value is split on commas and the parameters following a semicolon are ignored, so
+   {@code Accept: text/html;q=0.9, application/json} has both {@code text/html} and {@code application/json}, the
+   first of them with a route matcher wins. Header values are looked up in a hash table before any pattern is
+   evaluated, after the hosts and in the order the header names were first registered.
+  */
+  this.header = function(name, value, routeMatcher) {
+    var __args = arguments;
+    if (__args.length === 3 && typeof __args[0] === 'string' && typeof __args[1] === 'string' && typeof __args[2] === 'object' && __args[2]._vertxgen) {
+      j_routeMatcher.header(name, value, routeMatcher._jdel());
+      return that;
+    } else utils.invalidArgs();
+  };
+
+  /*
+   Add a filter called before the handler of every route, or of the routes registered with the pattern whatever
+   their method. Filters are only called for the requests matching a route and run in registration order.
+  */
+  this.before = function() {
+    var __args = arguments;
+    if (__args.length === 1 && typeof __args[0] === 'function') {
+      j_routeMatcher.before(function(jVal) {
+      __args[0](new FilterContext(jVal));
+    });
+      return that;
+    } else if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
+      j_routeMatcher.before(__args[0], function(jVal) {
+      __args[1](new FilterContext(jVal));
+    });
+      return that;
+    } else utils.invalidArgs();
+  };
+
+  /*
+   Add a filter called after the handler returned, for every route or for the routes registered with the pattern
+   whatever their method.
+  */
+  this.after = function() {
+    var __args = arguments;
+    if (__args.length === 1 && typeof __args[0] === 'function') {
+      j_routeMatcher.after(function(jVal) {
+      __args[0](new FilterContext(jVal));
+    });
+      return that;
+    } else if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
+      j_routeMatcher.after(__args[0], function(jVal) {
+      __args[1](new FilterContext(jVal));
+    });
+      return that;
+    } else utils.invalidArgs();
+  };
+
   /*
    Specify a handler that will be called when no other handlers match.
    If this handler is not specified default behaviour is to return a 404
@@ -105,6 +174,13 @@ var RouteMatcher = function(j_val) {
     } else utils.invalidArgs();
   };
 
+  this.freeze = function() {
+    var __args = arguments;
+    if (__args.length === 0) {
+      return new RouteMatcher(j_routeMatcher.freeze());
+    } else utils.invalidArgs();
+  };
+
   this._vertxgen = true;
 
   // Get a reference to the underlying Java delegate
@@ -114,10 +190,12 @@ var RouteMatcher = function(j_val) {
 
 };
 
-RouteMatcher.routeMatcher = function() {
+RouteMatcher.routeMatcher = function(options) {
   var __args = arguments;
   if (__args.length === 0) {
     return new RouteMatcher(JRouteMatcher.routeMatcher());
+  } else if (__args.length === 1 && typeof __args[0] === 'object') {
+    return new RouteMatcher(JRouteMatcher.routeMatcher(options != null ? new RouteMatcherOptions(new JsonObject(JSON.stringify(options))) : null));
   } else utils.invalidArgs();
 };
 
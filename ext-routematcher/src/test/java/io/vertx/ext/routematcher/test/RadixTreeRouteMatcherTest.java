@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2011-2014 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.routematcher.test;
+
+import io.vertx.ext.routematcher.RouteMatcher;
+import io.vertx.ext.routematcher.RouteMatcherOptions;
+
+/**
+ * Runs the {@link RouteMatcherTest} tests with simple patterns indexed in a radix tree.
+ */
+public class RadixTreeRouteMatcherTest extends RouteMatcherTest {
+
+  @Override
+  protected RouteMatcher createRouteMatcher(RouteMatcherOptions options) {
+    return RouteMatcher.routeMatcher(options.setRadixTree(true));
+  }
+}
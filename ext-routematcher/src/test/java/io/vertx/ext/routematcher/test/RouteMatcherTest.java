@@ -17,17 +17,30 @@
 package io.vertx.ext.routematcher.test;
 
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.http.HttpClientResponse;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.routematcher.BodyLimiter;
+import io.vertx.ext.routematcher.BodyLimiterOptions;
+import io.vertx.ext.routematcher.ResponseCache;
+import io.vertx.ext.routematcher.ResponseCacheOptions;
+import io.vertx.ext.routematcher.RouteLimiter;
+import io.vertx.ext.routematcher.RouteLimiterOptions;
 import io.vertx.ext.routematcher.RouteMatcher;
+import io.vertx.ext.routematcher.RouteMatcherOptions;
 import io.vertx.test.core.HttpTestBase;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="mailto:nscavell@redhat.com">Nick Scavelli</a>
@@ -156,6 +169,26 @@ public class RouteMatcherTest extends HttpTestBase {
     testRouteWithRegex(HttpMethod.PATCH);
   }
 
+  @Test
+  public void testRouteWithStaticPattern() {
+    Map<String, String> params = new HashMap<>();
+    testRoute(false, "/api/v1/status", params, HttpMethod.GET, "/api/v1/status");
+  }
+
+  @Test
+  public void testRouteWithStaticPatternNoMatch() {
+    Map<String, String> params = new HashMap<>();
+    testRoute(false, "/api/v1/status", params, HttpMethod.GET, "/api/v1/status/", false, false);
+  }
+
+  @Test
+  public void testRouteWithRegexOptionalGroup() {
+    // A group which does not participate in the match does not produce a param
+    Map<String, String> params = new HashMap<>();
+    params.put("param1", "v0.1");
+    testRoute(true, "\\/foo(\\/bar)?\\/([^\\/]+)", params, HttpMethod.GET, "/foo/v0.1");
+  }
+
   @Test
   public void testRouteNoMatchPattern() {
     Map<String, String> params = new HashMap<>();
@@ -180,8 +213,434 @@ public class RouteMatcherTest extends HttpTestBase {
     testRoute(true, "foo", params, HttpMethod.GET, "bar", false, true);
   }
 
+  @Test
+  public void testFirstRegisteredRegexWins() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/api\\/.*", req -> req.response().end("regex"));
+    matcher.matchMethod(HttpMethod.GET, "/api/:name", req -> req.response().end("pattern"));
+    testFirstRegisteredWins(matcher, "/api/foo", "regex");
+  }
+
+  @Test
+  public void testFirstRegisteredPatternWins() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/api/:name", req -> req.response().end("pattern"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/api\\/.*", req -> req.response().end("regex"));
+    testFirstRegisteredWins(matcher, "/api/foo", "pattern");
+  }
+
+  @Test
+  public void testFirstRegisteredParamPatternWins() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/:name/bar", req -> req.response().end("param"));
+    matcher.matchMethod(HttpMethod.GET, "/foo/bar", req -> req.response().end("literal"));
+    testFirstRegisteredWins(matcher, "/foo/bar", "param");
+  }
+
+  @Test
+  public void testFirstRegisteredRegexWinsOverStatic() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/he.*", req -> req.response().end("regex"));
+    matcher.matchMethod(HttpMethod.GET, "/health", req -> req.response().end("static"));
+    testFirstRegisteredWins(matcher, "/health", "regex");
+  }
+
+  @Test
+  public void testFirstRegisteredStaticWins() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/health", req -> req.response().end("static"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/he.*", req -> req.response().end("regex"));
+    matcher.matchMethod(HttpMethod.GET, "/health", req -> req.response().end("duplicate"));
+    testFirstRegisteredWins(matcher, "/health", "static");
+  }
+
+  @Test
+  public void testFirstMatchingRegexWins() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/([^\\/]+)\\/xhr", req -> req.response().end("xhr"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/([^\\/]+)\\/([^\\/]+)\\/jsonp", req -> {
+      assertEquals("foo", req.params().get("param0"));
+      assertEquals("bar", req.params().get("param1"));
+      req.response().end("jsonp");
+    });
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/.+", req -> req.response().end("catch-all"));
+    testFirstRegisteredWins(matcher, "/app/foo/bar/jsonp", "jsonp");
+  }
+
+  @Test
+  public void testRouteWithQuotedRegex() {
+    // Quoting left open runs to the end of the regular expression
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/x", req -> req.response().end("x"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/\\Q(y)", req -> req.response().end("quoted"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/.+", req -> req.response().end("catch-all"));
+    testFirstRegisteredWins(matcher, "/app/(y)", "quoted");
+  }
+
+  @Test
+  public void testRouteWithCommentsRegex() {
+    // A comment runs to the end of the regular expression
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/x", req -> req.response().end("x"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "(?x) \\/app \\/z # z only", req -> req.response().end("z"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/.+", req -> req.response().end("catch-all"));
+    testFirstRegisteredWins(matcher, "/app/z", "z");
+  }
+
+  @Test
+  public void testFirstRegisteredAllWins() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.allWithRegEx("\\/api\\/.*", req -> req.response().end("all"));
+    matcher.matchMethod(HttpMethod.GET, "/api/:name", req -> req.response().end("get"));
+    testFirstRegisteredWins(matcher, "/api/foo", "all");
+  }
+
+  @Test
+  public void testFirstRegisteredMethodWinsOverAll() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/api/:name", req -> req.response().end("get"));
+    matcher.all("/api/:name", req -> req.response().end("all"));
+    matcher.all("/api/foo", req -> req.response().end("static"));
+    testFirstRegisteredWins(matcher, "/api/foo", "get");
+  }
+
+  @Test
+  public void testAllMatchesOtherMethods() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/api/:name", req -> req.response().end("get"));
+    matcher.all("/api/:name", req -> {
+      assertEquals("foo", req.params().get("name"));
+      req.response().end("all");
+    });
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      client.request(HttpMethod.PUT, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/api/foo", resp -> {
+        assertEquals(200, resp.statusCode());
+        resp.bodyHandler(body -> {
+          assertEquals("all", body.toString());
+          testComplete();
+        });
+      }).end();
+    }));
+    await();
+  }
+
+  @Test
+  public void testRouteByHost() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/foo", req -> req.response().end("default"));
+    matcher.host("example.com", RouteMatcher.routeMatcher()
+      .matchMethod(HttpMethod.GET, "/foo", req -> req.response().end("example")));
+    testRouteWithHeader(matcher, "Host", "EXAMPLE.com:8080", "example");
+  }
+
+  @Test
+  public void testRouteByAcceptHeader() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/foo", req -> req.response().end("default"));
+    matcher.header("Accept", "application/json", RouteMatcher.routeMatcher()
+      .matchMethod(HttpMethod.GET, "/foo", req -> req.response().end("json")));
+    testRouteWithHeader(matcher, "Accept", "text/html;q=0.9, application/json", "json");
+  }
+
+  @Test
+  public void testRouteWithoutMatchingHeader() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/foo", req -> req.response().end("default"));
+    matcher.header("Accept", "application/json", RouteMatcher.routeMatcher()
+      .matchMethod(HttpMethod.GET, "/foo", req -> req.response().end("json")));
+    testRouteWithHeader(matcher, "Accept", "text/html", "default");
+  }
+
+  @Test
+  public void testMetrics() {
+    RouteMatcher matcher = createRouteMatcher(new RouteMatcherOptions().setMetricsEnabled(true));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/app\\/([^\\/]+)\\/xhr", req -> req.response().end("xhr"));
+    matcher.matchMethod(HttpMethod.GET, "/users/:id", req -> req.response().end("user"));
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/users/foo", resp -> {
+        assertEquals(200, resp.statusCode());
+        client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/app/missing", resp2 -> {
+          assertEquals(404, resp2.statusCode());
+          Map<String, JsonObject> metrics = matcher.metrics();
+          assertEquals(1L, (long) metrics.get("GET /users/:id").getLong("count"));
+          assertEquals(0L, (long) metrics.get("GET \\/app\\/([^\\/]+)\\/xhr").getLong("count"));
+          assertEquals(1L, (long) metrics.get("noMatch").getLong("count"));
+          assertTrue(metrics.get("noMatch").getLong("failedAttempts") > 0);
+          testComplete();
+        }).end();
+      }).end();
+    }));
+    await();
+  }
+
+  @Test
+  public void testMetricsDisabled() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/users/:id", req -> req.response().end("user"));
+    assertTrue(matcher.metrics().isEmpty());
+  }
+
+  @Test
+  public void testAdaptiveOrderingKeepsFirstRegisteredWins() {
+    RouteMatcher matcher = createRouteMatcher(new RouteMatcherOptions().setAdaptiveOrdering(true)
+      .setAdaptiveOrderingInterval(1));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/api\\/admin\\/.*", req -> req.response().end("admin"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/static\\/.*", req -> req.response().end("static"));
+    matcher.matchMethodWithRegEx(HttpMethod.GET, "\\/api\\/.*", req -> req.response().end("api"));
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      // The hot binding moves ahead of the disjoint one only
+      testRequests(new String[]{"/api/foo", "/api/foo", "/api/foo", "/api/admin/foo", "/static/foo"},
+        new String[]{"api", "api", "api", "admin", "static"}, 0);
+    }));
+    await();
+  }
+
+  @Test
+  public void testNormalizePaths() {
+    RouteMatcher matcher = createRouteMatcher(new RouteMatcherOptions().setNormalizePaths(true));
+    matcher.matchMethod(HttpMethod.GET, "/users/:id", req -> req.response().end(req.params().get("id")));
+    matcher.matchMethod(HttpMethod.GET, "/static/a b", req -> req.response().end("static"));
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      testRequests(new String[]{"/users//foo/", "/users/%66oo", "/other/../static/a%20b"},
+        new String[]{"foo", "foo", "static"}, 0);
+    }));
+    await();
+  }
+
+  @Test
+  public void testNormalizePathsEncodedSlash() {
+    RouteMatcher matcher = createRouteMatcher(new RouteMatcherOptions().setNormalizePaths(true));
+    matcher.matchMethod(HttpMethod.GET, "/files/:name", req -> req.response().end(req.params().get("name")));
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      // An encoded slash or percent sign stays encoded in the param, the rest is decoded
+      testRequests(new String[]{"/files/a%2Fb%20c", "/files/100%25"}, new String[]{"a%2Fb c", "100%25"}, 0);
+    }));
+    await();
+  }
+
+  @Test
+  public void testFilters() {
+    List<String> calls = new ArrayList<>();
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/users/:id", req -> {
+      calls.add("handler");
+      req.response().end(req.params().get("id") + req.response().headers().get("filtered"));
+    });
+    matcher.matchMethod(HttpMethod.GET, "/admin", req -> calls.add("admin"));
+    matcher.before(ctx -> {
+      calls.add("before");
+      ctx.request().response().putHeader("filtered", "true");
+      ctx.next();
+    });
+    matcher.before("/admin", ctx -> ctx.request().response().setStatusCode(403).end());
+    matcher.after(ctx -> {
+      calls.add("after");
+      ctx.next();
+    });
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/users/foo", resp -> {
+        assertEquals(200, resp.statusCode());
+        resp.bodyHandler(body -> {
+          assertEquals("footrue", body.toString());
+          client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/admin", resp2 -> {
+            assertEquals(403, resp2.statusCode());
+            client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/missing", resp3 -> {
+              assertEquals(404, resp3.statusCode());
+              assertEquals(Arrays.asList("before", "handler", "after", "before"), calls);
+              testComplete();
+            }).end();
+          }).end();
+        });
+      }).end();
+    }));
+    await();
+  }
+
+  @Test
+  public void testRouteLimiter() {
+    RouteLimiter rateLimiter = RouteLimiter.routeLimiter(new RouteLimiterOptions().setRate(1).setBurst(1));
+    RouteLimiter concurrencyLimiter = RouteLimiter.routeLimiter(new RouteLimiterOptions().setMaxConcurrency(1));
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/search", rateLimiter.limit(req -> req.response().end("search")));
+    // The response never ends so the request keeps its slot
+    matcher.matchMethod(HttpMethod.GET, "/slow", concurrencyLimiter.limit(req ->
+      req.response().setChunked(true).write("slow")));
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/search", resp -> {
+        assertEquals(200, resp.statusCode());
+        client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/search", resp2 -> {
+          assertEquals(429, resp2.statusCode());
+          assertNotNull(resp2.headers().get("Retry-After"));
+          client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/slow", resp3 -> {
+            assertEquals(200, resp3.statusCode());
+            client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/slow", resp4 -> {
+              assertEquals(503, resp4.statusCode());
+              testComplete();
+            }).end();
+          }).end();
+        }).end();
+      }).end();
+    }));
+    await();
+  }
+
+  @Test
+  public void testBodyLimiter() {
+    BodyLimiter limiter = BodyLimiter.bodyLimiter(new BodyLimiterOptions().setMaxBodySize(10));
+    BodyLimiter aggregator = BodyLimiter.bodyLimiter(new BodyLimiterOptions().setMaxBodySize(10).setAggregate(true));
+    AtomicInteger aggregated = new AtomicInteger();
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.POST, "/upload", limiter.limit(req ->
+      req.bodyHandler(body -> req.response().end("got " + body.length()))));
+    matcher.matchMethod(HttpMethod.POST, "/aggregate", aggregator.limit(req -> {
+      aggregated.incrementAndGet();
+      req.bodyHandler(body -> req.response().end("got " + body.length()));
+    }));
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      client.request(HttpMethod.POST, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/upload", resp -> {
+        assertEquals(200, resp.statusCode());
+        resp.bodyHandler(body -> {
+          assertEquals("got 5", body.toString());
+          // The length is known before reading the body
+          client.request(HttpMethod.POST, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/upload", resp2 -> {
+            assertEquals(413, resp2.statusCode());
+            // The limit is crossed while reading a chunked body
+            client.request(HttpMethod.POST, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/aggregate", resp3 -> {
+              assertEquals(413, resp3.statusCode());
+              assertEquals(0, aggregated.get());
+              client.request(HttpMethod.POST, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/aggregate", resp4 -> {
+                assertEquals(200, resp4.statusCode());
+                assertEquals(1, aggregated.get());
+                testComplete();
+              }).setChunked(true).write("abc").end("def");
+            }).setChunked(true).write("abcdef").write("ghijkl").end();
+          }).end(Buffer.buffer(new byte[20]));
+        });
+      }).end("abcde");
+    }));
+    await();
+  }
+
+  @Test
+  public void testShadowedRoutes() {
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/users/:id", req -> req.response().end("user"));
+    matcher.matchMethod(HttpMethod.GET, "/users/me", req -> req.response().end("me"));
+    matcher.matchMethod(HttpMethod.GET, "/users/:name", req -> req.response().end("name"));
+    matcher.matchMethod(HttpMethod.GET, "/users/:id/posts", req -> req.response().end("posts"));
+    matcher.all("/health", req -> req.response().end("health"));
+    matcher.matchMethod(HttpMethod.POST, "/health", req -> req.response().end("post health"));
+    matcher.allWithRegEx("\\/files\\/.*", req -> req.response().end("files"));
+    matcher.allWithRegEx("\\/files\\/.*", req -> req.response().end("files again"));
+    Map<String, String> expected = new HashMap<>();
+    expected.put("GET /users/me", "GET /users/:id");
+    expected.put("GET /users/:name", "GET /users/:id");
+    expected.put("POST /health", "ALL /health");
+    expected.put("ALL \\/files\\/.*", "ALL \\/files\\/.*");
+    assertEquals(expected, matcher.shadowedRoutes());
+  }
+
+  @Test
+  public void testResponseCache() {
+    AtomicInteger calls = new AtomicInteger();
+    ResponseCache cache = ResponseCache.responseCache(vertx, new ResponseCacheOptions().addKeyParam("id"));
+    RouteMatcher matcher = createRouteMatcher();
+    matcher.matchMethod(HttpMethod.GET, "/items/:id", cache.cache(req ->
+      req.response().end(req.params().get("id") + calls.incrementAndGet())));
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/items/foo", resp -> {
+        assertEquals(200, resp.statusCode());
+        String etag = resp.headers().get("ETag");
+        assertNotNull(etag);
+        client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/items/foo", resp2 -> {
+          assertEquals(200, resp2.statusCode());
+          assertEquals(etag, resp2.headers().get("ETag"));
+          resp2.bodyHandler(body -> {
+            assertEquals("foo1", body.toString());
+            client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/items/foo", resp3 -> {
+              assertEquals(304, resp3.statusCode());
+              assertEquals(1, calls.get());
+              testRequests(new String[]{"/items/bar"}, new String[]{"bar2"}, 0);
+            }).putHeader("If-None-Match", etag).end();
+          });
+        }).end();
+      }).end();
+    }));
+    await();
+  }
+
   //----------- Private non test method ----------------------------
 
+  protected RouteMatcher createRouteMatcher() {
+    return createRouteMatcher(new RouteMatcherOptions());
+  }
+
+  protected RouteMatcher createRouteMatcher(RouteMatcherOptions options) {
+    return RouteMatcher.routeMatcher(options);
+  }
+
+  private void testRequests(String[] uris, String[] expectedBodies, int index) {
+    if (index == uris.length) {
+      testComplete();
+      return;
+    }
+    client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, uris[index], resp -> {
+      assertEquals(200, resp.statusCode());
+      resp.bodyHandler(body -> {
+        assertEquals(expectedBodies[index], body.toString());
+        testRequests(uris, expectedBodies, index + 1);
+      });
+    }).end();
+  }
+
+  private void testRouteWithHeader(RouteMatcher matcher, String name, String value, String expectedBody) {
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, "/foo", resp -> {
+        assertEquals(200, resp.statusCode());
+        resp.bodyHandler(body -> {
+          assertEquals(expectedBody, body.toString());
+          testComplete();
+        });
+      }).putHeader(name, value).end();
+    }));
+    await();
+  }
+
+  private void testFirstRegisteredWins(RouteMatcher matcher, String uri, String expectedBody) {
+    server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
+    client = vertx.createHttpClient(new HttpClientOptions());
+    server.requestHandler(matcher::accept).listen(onSuccess(s -> {
+      client.request(HttpMethod.GET, DEFAULT_HTTP_PORT, DEFAULT_HTTP_HOST, uri, resp -> {
+        assertEquals(200, resp.statusCode());
+        resp.bodyHandler(body -> {
+          assertEquals(expectedBody, body.toString());
+          testComplete();
+        });
+      }).end();
+    }));
+    await();
+  }
+
   private void testRouteWithPattern1(HttpMethod method) {
     Map<String, String> params = new HashMap<>();
     params.put("name", "foo");
@@ -242,7 +701,7 @@ public class RouteMatcherTest extends HttpTestBase {
     server = vertx.createHttpServer(new HttpServerOptions().setPort(DEFAULT_HTTP_PORT));
     client = vertx.createHttpClient(new HttpClientOptions());
 
-    RouteMatcher matcher = RouteMatcher.routeMatcher();
+    RouteMatcher matcher = createRouteMatcher();
 
     Handler<HttpServerRequest> handler = req -> {
       assertEquals(params.size(), req.params().size());
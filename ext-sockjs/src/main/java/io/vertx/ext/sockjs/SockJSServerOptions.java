@@ -32,6 +32,7 @@ public class SockJSServerOptions {
   private static final boolean DEFAULT_INSERTSESSIONID = true;
   private static final long DEFAULT_HEARTBEATPERIOD = 25l * 1000;
   private static final int DEFAULT_MAXBYTESSTREAMING = 128 * 1024;
+  private static final long DEFAULT_MAXBYTESRECEIVED = 0;
   private static final String DEFAULT_PREFIX = "/";
   private static final String DEFAULT_LIBRARYURL = "http://cdn.sockjs.org/sockjs-0.3.4.min.js";
 
@@ -39,6 +40,7 @@ public class SockJSServerOptions {
   private boolean insertJSESSIONID = true;
   private long heartbeatPeriod = 25l * 1000;
   private int maxBytesStreaming = 128 * 1024;
+  private long maxBytesReceived = 0;
   private String prefix = "/";
   private String libraryURL = "http://cdn.sockjs.org/sockjs-0.3.4.min.js";
   private Set<String> disabledTransports = new HashSet<>();
@@ -52,6 +54,7 @@ public class SockJSServerOptions {
     this.insertJSESSIONID = DEFAULT_INSERTSESSIONID;
     this.heartbeatPeriod = DEFAULT_HEARTBEATPERIOD;
     this.maxBytesStreaming = DEFAULT_MAXBYTESSTREAMING;
+    this.maxBytesReceived = DEFAULT_MAXBYTESRECEIVED;
     this.prefix = DEFAULT_PREFIX;
     this.libraryURL = DEFAULT_LIBRARYURL;
   }
@@ -61,6 +64,7 @@ public class SockJSServerOptions {
     this.insertJSESSIONID = json.getBoolean("insertJSESSIONID", DEFAULT_INSERTSESSIONID);
     this.heartbeatPeriod = json.getLong("heartbeatPeriod", DEFAULT_HEARTBEATPERIOD);
     this.maxBytesStreaming = json.getInteger("maxBytesStreaming", DEFAULT_MAXBYTESSTREAMING);
+    this.maxBytesReceived = json.getLong("maxBytesReceived", DEFAULT_MAXBYTESRECEIVED);
     this.prefix = json.getString("prefix", DEFAULT_PREFIX);
     this.libraryURL = json.getString("libraryURL", DEFAULT_LIBRARYURL);
     JsonArray arr = json.getJsonArray("disabledTransports");
@@ -121,6 +125,22 @@ public class SockJSServerOptions {
     return this;
   }
 
+  public long getMaxBytesReceived() {
+    return maxBytesReceived;
+  }
+
+  /**
+   * Set the maximum size in bytes of the body of a send request, larger bodies get a {@code 413} response as soon as
+   * the limit is crossed. The default {@code 0} means no limit.
+   */
+  public SockJSServerOptions setMaxBytesReceived(long maxBytesReceived) {
+    if (maxBytesReceived < 0) {
+      throw new IllegalArgumentException("maxBytesReceived must be >= 0");
+    }
+    this.maxBytesReceived = maxBytesReceived;
+    return this;
+  }
+
   public String getPrefix() {
     return prefix;
   }
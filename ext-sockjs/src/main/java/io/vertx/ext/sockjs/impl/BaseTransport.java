@@ -28,6 +28,8 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.impl.LoggerFactory;
 import io.vertx.core.shareddata.LocalMap;
+import io.vertx.ext.routematcher.BodyLimiter;
+import io.vertx.ext.routematcher.BodyLimiterOptions;
 import io.vertx.ext.sockjs.SockJSServerOptions;
 import io.vertx.ext.sockjs.SockJSSocket;
 import io.vertx.ext.sockjs.Transport;
@@ -173,6 +175,13 @@ class BaseTransport {
     req.response().headers().set("Cache-Control", "no-store, no-cache, must-revalidate, max-age=0");
   }
 
+  static Handler<HttpServerRequest> limitBody(SockJSServerOptions options, Handler<HttpServerRequest> handler) {
+    if (options.getMaxBytesReceived() == 0) {
+      return handler;
+    }
+    return BodyLimiter.bodyLimiter(new BodyLimiterOptions().setMaxBodySize(options.getMaxBytesReceived())).limit(handler);
+  }
+
   static Handler<HttpServerRequest> createCORSOptionsHandler(SockJSServerOptions options, String methods) {
     return req -> {
       if (log.isTraceEnabled()) log.trace("In CORS options handler");
@@ -398,7 +398,7 @@ public class EventBusBridge implements Handler<SockJSSocket> {
   If at least one match is supplied and all the fields of any match match then the message inboundPermitted,
   this means that specifying one match with a JSON empty object means everything is accepted
    */
-  private Match checkMatches(boolean inbound, String address, Object body) {
+  Match checkMatches(boolean inbound, String address, Object body) {
 
     if (inbound && acceptedReplyAddresses.remove(address)) {
       // This is an inbound reply, so we accept it
@@ -504,7 +504,7 @@ public class EventBusBridge implements Handler<SockJSSocket> {
     }
   }
   
-  private static class Match {
+  static class Match {
     public final boolean doesMatch;
     public final boolean requiresAuth;
 
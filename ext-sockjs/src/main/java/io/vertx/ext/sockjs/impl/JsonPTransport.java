@@ -63,7 +63,7 @@ class JsonPTransport extends BaseTransport {
 
     String jsonpSendRE = basePath + COMMON_PATH_ELEMENT_RE + "jsonp_send";
 
-    rm.matchMethodWithRegEx(HttpMethod.POST, jsonpSendRE, req -> {
+    rm.matchMethodWithRegEx(HttpMethod.POST, jsonpSendRE, limitBody(options, req -> {
       if (log.isTraceEnabled()) log.trace("JsonP, post: " + req.uri());
       String sessionID = req.params().get("param0");
       final Session session = sessions.get(sessionID);
@@ -74,7 +74,7 @@ class JsonPTransport extends BaseTransport {
         setJSESSIONID(options, req);
         req.response().end();
       }
-    });
+    }));
   }
 
   private void handleSend(HttpServerRequest req, Session session) {
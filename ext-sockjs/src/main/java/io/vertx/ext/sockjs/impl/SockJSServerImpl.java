@@ -30,6 +30,7 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.impl.LoggerFactory;
 import io.vertx.core.shareddata.LocalMap;
 import io.vertx.ext.routematcher.RouteMatcher;
+import io.vertx.ext.routematcher.RouteMatcherOptions;
 import io.vertx.ext.sockjs.BridgeOptions;
 import io.vertx.ext.sockjs.EventBusBridgeHook;
 import io.vertx.ext.sockjs.SockJSServer;
@@ -57,7 +58,8 @@ public class SockJSServerImpl implements SockJSServer, Handler<HttpServerRequest
   private static final Logger log = LoggerFactory.getLogger(SockJSServerImpl.class);
 
   private final Vertx vertx;
-  private RouteMatcher rm = RouteMatcher.routeMatcher();
+  // All the app routes are regular expressions sharing the app prefix, match them as a combined alternation
+  private RouteMatcher rm = RouteMatcher.routeMatcher(new RouteMatcherOptions().setCombinedRegEx(true));
   private WebSocketMatcher wsMatcher = new WebSocketMatcher();
   private final LocalMap<String, Session> sessions;
   private EventBusBridgeHook hook;
@@ -69,7 +69,7 @@ class XhrTransport extends BaseTransport {
 
     rm.matchMethodWithRegEx(HttpMethod.OPTIONS, xhrSendRE, xhrOptionsHandler);
 
-    rm.matchMethodWithRegEx(HttpMethod.POST, xhrSendRE, req -> {
+    rm.matchMethodWithRegEx(HttpMethod.POST, xhrSendRE, limitBody(options, req -> {
       if (log.isTraceEnabled()) log.trace("XHR send, post, " + req.uri());
       String sessionID = req.params().get("param0");
       final Session session = sessions.get(sessionID);
@@ -80,7 +80,7 @@ class XhrTransport extends BaseTransport {
         setJSESSIONID(options, req);
         req.response().end();
       }
-    });
+    }));
   }
 
   private void registerHandler(RouteMatcher rm, Handler<SockJSSocket> sockHandler, String re,